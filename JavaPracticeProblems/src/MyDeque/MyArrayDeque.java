@@ -0,0 +1,368 @@
+package MyDeque;
+
+import stdlib.*;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * MyDeque with the items in a resizing int[] ring buffer instead of one Node
+ * per item: 4 bytes per item when full, and no allocation on push or pop
+ * except when the buffer doubles or halves.
+ *
+ * The buffer length is a power of two, so positions wrap with a mask. It
+ * doubles when full and halves when a pop leaves it a quarter full, so
+ * pushes and pops are amortized O(1). delete(k) moves whichever side of k
+ * is shorter, O(min(k, N-k)). concat copies the smaller deque into the
+ * buffer of the larger one, O(min(N, that.N)).
+ */
+public class MyArrayDeque {
+	private static final int MIN_CAPACITY = 8;
+
+	int[] a = new int[MIN_CAPACITY];
+	int head = 0; // position of the leftmost item
+	int N = 0;
+
+	public boolean isEmpty() {
+		return N == 0;
+	}
+
+	public int size() {
+		return N;
+	}
+
+	// position in a of the item k from the left
+	private int slot(int k) {
+		return (head + k) & (a.length - 1);
+	}
+
+	// move the items, in order, to the start of a new buffer of the given length
+	private void resize(int capacity) {
+		int[] b = new int[capacity];
+		int left = Math.min(N, a.length - head);
+		System.arraycopy(a, head, b, 0, left);
+		System.arraycopy(a, 0, b, left, N - left);
+		a = b;
+		head = 0;
+	}
+
+	// smallest capacity that holds n items
+	private static int capacityFor(int n) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < n)
+			capacity *= 2;
+		return capacity;
+	}
+
+	// halve the buffer once it is at most a quarter full
+	private void shrink() {
+		if (a.length > MIN_CAPACITY && N <= a.length / 4)
+			resize(a.length / 2);
+	}
+
+	public void pushLeft(int item) {
+		if (N == a.length)
+			resize(2 * a.length);
+		head = (head - 1) & (a.length - 1);
+		a[head] = item;
+		N++;
+	}
+
+	public void pushRight(int item) {
+		if (N == a.length)
+			resize(2 * a.length);
+		a[slot(N)] = item;
+		N++;
+	}
+
+	public int popLeft() {
+		if (N == 0)
+			throw new NoSuchElementException();
+		int item = a[head];
+		head = (head + 1) & (a.length - 1);
+		N--;
+		shrink();
+		return item;
+	}
+
+	public int popRight() {
+		if (N == 0)
+			throw new NoSuchElementException();
+		int item = a[slot(N - 1)];
+		N--;
+		shrink();
+		return item;
+	}
+
+	// Move the items of "that" to the right end of this deque;
+	// after execution, "that" is empty.
+	// The smaller of the two is copied into the buffer of the larger one.
+	public void concat(MyArrayDeque that) {
+		if (that == this)
+			throw new IllegalArgumentException();
+		int total = N + that.N;
+		if (that.N > N) {
+			if (that.a.length < total)
+				that.resize(capacityFor(total));
+			for (int k = N - 1; k >= 0; k--)
+				that.pushLeft(a[slot(k)]);
+			a = that.a;
+			head = that.head;
+		} else {
+			if (a.length < total)
+				resize(capacityFor(total));
+			for (int k = 0; k < that.N; k++)
+				a[slot(N + k)] = that.a[that.slot(k)];
+		}
+		N = total;
+		that.a = new int[MIN_CAPACITY];
+		that.head = 0;
+		that.N = 0;
+	}
+
+	// Delete and return the kth element from the left,
+	// moving the items on the shorter side of it over by one.
+	public int delete(int k) {
+		if (k < 0 || k >= N)
+			throw new IllegalArgumentException();
+		int item = a[slot(k)];
+		if (k < N - 1 - k) {
+			for (int i = k; i > 0; i--)
+				a[slot(i)] = a[slot(i - 1)];
+			head = (head + 1) & (a.length - 1);
+		} else {
+			for (int i = k; i < N - 1; i++)
+				a[slot(i)] = a[slot(i + 1)];
+		}
+		N--;
+		shrink();
+		return item;
+	}
+
+	public String toString() {
+		if (N == 0)
+			return "[]";
+		StringBuilder sb = new StringBuilder("[");
+		sb.append(a[head]);
+		for (int k = 1; k < N; k++) {
+			sb.append(" ");
+			sb.append(a[slot(k)]);
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+
+	private void checkInvariants() {
+		if (Integer.bitCount(a.length) != 1 || a.length < MIN_CAPACITY)
+			throw new Error("capacity " + a.length + " is not a power of two >= " + MIN_CAPACITY);
+		if (N < 0 || N > a.length)
+			throw new Error("size " + N + " does not fit capacity " + a.length);
+		if (head < 0 || head >= a.length)
+			throw new Error("head " + head + " is outside the buffer");
+	}
+
+	private void check(String expected) {
+		checkInvariants();
+		if (expected != null) {
+			if (!expected.equals(this.toString()))
+				throw new Error("Expected \"" + expected + "\", got \"" + this + "\"");
+		}
+		StdOut.println(this);
+	}
+
+	private void check(int iExpected, int iActual, String expected) {
+		if (iExpected != iActual)
+			throw new Error("Expected \"" + iExpected + "\", got \"" + iActual + "\"");
+		check(expected);
+	}
+
+	// random operations on this and on a java.util.ArrayDeque must give the same results
+	private static void randomTest() {
+		Random random = new Random(42);
+		MyArrayDeque d = new MyArrayDeque();
+		ArrayDeque<Integer> expected = new ArrayDeque<>();
+		for (int op = 0; op < 200000; op++) {
+			int choice = random.nextInt(100);
+			int item = random.nextInt(1000);
+			// drift towards growing for the first half, shrinking for the second
+			boolean grow = op < 100000 ? choice < 55 : choice < 45;
+			if (grow && choice % 2 == 0) {
+				d.pushLeft(item);
+				expected.addFirst(item);
+			} else if (grow) {
+				d.pushRight(item);
+				expected.addLast(item);
+			} else if (expected.isEmpty()) {
+				continue;
+			} else if (choice < 70) {
+				if (d.popLeft() != expected.removeFirst())
+					throw new Error("popLeft differs at op " + op);
+			} else if (choice < 95) {
+				if (d.popRight() != expected.removeLast())
+					throw new Error("popRight differs at op " + op);
+			} else {
+				int k = random.nextInt(expected.size());
+				Integer[] items = expected.toArray(new Integer[0]);
+				expected.clear();
+				for (int i = 0; i < items.length; i++)
+					if (i != k)
+						expected.addLast(items[i]);
+				if (d.delete(k) != items[k])
+					throw new Error("delete differs at op " + op);
+			}
+			d.checkInvariants();
+			if (d.size() != expected.size())
+				throw new Error("size differs at op " + op);
+		}
+		if (d.a.length > MIN_CAPACITY && d.N <= d.a.length / 4)
+			throw new Error("did not shrink: " + d.N + " items in " + d.a.length);
+		StdOut.println("agrees with java.util.ArrayDeque on 200000 random operations");
+	}
+
+	public static void main(String args[]) {
+		MyArrayDeque d1, d2, d3;
+		Integer k;
+
+		////////////////////////////////////////////////////////////////////
+		// push/pop tests
+		////////////////////////////////////////////////////////////////////
+		d1 = new MyArrayDeque();
+		d1.pushLeft(11);
+		d1.check("[11]");
+		d1.pushLeft(12);
+		d1.check("[12 11]");
+		d1.pushLeft(13);
+		d1.check("[13 12 11]");
+		k = d1.popLeft();
+		d1.check(13, k, "[12 11]");
+		k = d1.popLeft();
+		d1.check(12, k, "[11]");
+		k = d1.popLeft();
+		d1.check(11, k, "[]");
+
+		d1 = new MyArrayDeque();
+		d1.pushRight(11);
+		d1.check("[11]");
+		d1.pushRight(12);
+		d1.check("[11 12]");
+		d1.pushRight(13);
+		d1.check("[11 12 13]");
+		k = d1.popRight();
+		d1.check(13, k, "[11 12]");
+		k = d1.popRight();
+		d1.check(12, k, "[11]");
+		k = d1.popRight();
+		d1.check(11, k, "[]");
+
+		////////////////////////////////////////////////////////////////////
+		// test exceptions
+		////////////////////////////////////////////////////////////////////
+		try {
+			d1.popLeft();
+			throw new Error("Expected exception");
+		} catch (NoSuchElementException e) {
+		}
+
+		try {
+			d1.popRight();
+			throw new Error("Expected exception");
+		} catch (NoSuchElementException e) {
+		}
+
+		////////////////////////////////////////////////////////////////////
+		// concat tests (and more push/pop tests)
+		////////////////////////////////////////////////////////////////////
+		d1 = new MyArrayDeque();
+		d1.concat(new MyArrayDeque());
+		d1.check("[]");
+		d1.pushLeft(11);
+		d1.concat(new MyArrayDeque());
+		d1.check("[11]");
+
+		d1 = new MyArrayDeque();
+		d2 = new MyArrayDeque();
+		d2.pushLeft(11);
+		d1.concat(d2);
+		d1.check("[11]");
+
+		d1 = new MyArrayDeque();
+		for (int i = 10; i < 15; i++) {
+			d1.pushLeft(i);
+			d1.checkInvariants();
+		}
+		for (int i = 20; i < 25; i++) {
+			d1.pushRight(i);
+			d1.checkInvariants();
+		}
+		d1.check("[14 13 12 11 10 20 21 22 23 24]");
+		d2 = new MyArrayDeque();
+		d1.concat(d2);
+		d1.check("[14 13 12 11 10 20 21 22 23 24]");
+		d2.check("[]");
+
+		for (int i = 30; i < 35; i++) {
+			d2.pushLeft(i);
+			d2.checkInvariants();
+		}
+		for (int i = 40; i < 45; i++) {
+			d2.pushRight(i);
+			d2.checkInvariants();
+		}
+		d2.check("[34 33 32 31 30 40 41 42 43 44]");
+
+		d3 = new MyArrayDeque();
+		d2.concat(d3);
+		d2.check("[34 33 32 31 30 40 41 42 43 44]");
+		d3.check("[]");
+
+		d1.concat(d2);
+		d1.check("[14 13 12 11 10 20 21 22 23 24 34 33 32 31 30 40 41 42 43 44]");
+		d2.check("[]");
+
+		// a short deque concatenated with a long one moves into the long one's buffer
+		d3 = new MyArrayDeque();
+		d3.pushRight(1);
+		d3.pushRight(2);
+		d3.concat(d1);
+		d3.check("[1 2 14 13 12 11 10 20 21 22 23 24 34 33 32 31 30 40 41 42 43 44]");
+		d1.check("[]");
+		for (int i = 0; i < 22; i++) {
+			d3.popLeft();
+			d3.checkInvariants();
+		}
+
+		////////////////////////////////////////////////////////////////////
+		// delete tests
+		////////////////////////////////////////////////////////////////////
+		d1 = new MyArrayDeque();
+		d1.pushLeft(11);
+		k = d1.delete(0);
+		d1.check(11, k, "[]");
+		for (int i = 10; i < 20; i++) {
+			d1.pushRight(i);
+			d1.checkInvariants();
+		}
+		k = d1.delete(0);
+		d1.check(10, k, "[11 12 13 14 15 16 17 18 19]");
+		k = d1.delete(8);
+		d1.check(19, k, "[11 12 13 14 15 16 17 18]");
+		k = d1.delete(4);
+		d1.check(15, k, "[11 12 13 14 16 17 18]");
+		k = d1.delete(5);
+		d1.check(17, k, "[11 12 13 14 16 18]");
+		k = d1.delete(1);
+		d1.check(12, k, "[11 13 14 16 18]");
+		k = d1.delete(0);
+		d1.check(11, k, "[13 14 16 18]");
+		k = d1.delete(0);
+		d1.check(13, k, "[14 16 18]");
+		k = d1.delete(0);
+		d1.check(14, k, "[16 18]");
+		k = d1.delete(1);
+		d1.check(18, k, "[16]");
+		k = d1.delete(0);
+		d1.check(16, k, "[]");
+
+		randomTest();
+	}
+}
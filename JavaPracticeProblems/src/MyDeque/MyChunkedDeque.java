@@ -0,0 +1,460 @@
+package MyDeque;
+
+import stdlib.*;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * MyDeque as an unrolled linked list: a doubly linked chain of Chunks, each
+ * holding up to CHUNK items in a contiguous run of an int[]. Pushes and pops
+ * only allocate when a chunk fills up or runs dry.
+ *
+ * A chunk takes about 2100 bytes (the int[CHUNK] and its header, plus the
+ * Chunk object), so a full one costs about 4.1 bytes per item; pushing N
+ * items on one end leaves only full chunks. The merge rule guarantees less:
+ * any two neighbours hold more than CHUNK items between them, except where
+ * pops at the ends have thinned the first or last chunk. So after deletes
+ * and concats a chunk is on average more than half full, which bounds the
+ * deque at about 8.2 bytes per item, plus up to two nearly empty end chunks
+ * (about 4 KB).
+ *
+ * concat stays O(1): it splices the chain of "that" after this one, and
+ * merges the two chunks at the seam if they fit in one, which copies at
+ * most CHUNK items. delete(k) walks whole chunks from the nearer end, then
+ * shifts the shorter side inside one chunk: O(N/CHUNK + CHUNK). A chunk
+ * left by delete is merged into a neighbour whenever the two fit in one,
+ * so deletes do not leave the list full of nearly empty chunks.
+ */
+public class MyChunkedDeque {
+	static final int CHUNK = 512;
+
+	static class Chunk {
+		final int[] items = new int[CHUNK];
+		int lo, hi; // the items are items[lo..hi-1]
+		Chunk prev, next;
+
+		int size() {
+			return hi - lo;
+		}
+	}
+
+	Chunk first = null;
+	Chunk last = null;
+	int N = 0;
+	Chunk spare = null; // last chunk to run dry, reused so a push/pop at a chunk boundary does not allocate
+
+	public boolean isEmpty() {
+		return N == 0;
+	}
+
+	public int size() {
+		return N;
+	}
+
+	// an empty chunk whose items will start at position at
+	private Chunk newChunk(int at) {
+		Chunk c = spare != null ? spare : new Chunk();
+		spare = null;
+		c.lo = c.hi = at;
+		c.prev = c.next = null;
+		return c;
+	}
+
+	// remove chunk c from the chain
+	private void unlink(Chunk c) {
+		if (c.prev == null) first = c.next;
+		else c.prev.next = c.next;
+		if (c.next == null) last = c.prev;
+		else c.next.prev = c.prev;
+		c.prev = c.next = null;
+	}
+
+	public void pushLeft(int item) {
+		if (first == null) {
+			first = last = newChunk(CHUNK / 2);
+		} else if (first.lo == 0) {
+			Chunk c = newChunk(CHUNK);
+			c.next = first;
+			first.prev = c;
+			first = c;
+		}
+		first.items[--first.lo] = item;
+		N++;
+	}
+
+	public void pushRight(int item) {
+		if (last == null) {
+			first = last = newChunk(CHUNK / 2);
+		} else if (last.hi == CHUNK) {
+			Chunk c = newChunk(0);
+			c.prev = last;
+			last.next = c;
+			last = c;
+		}
+		last.items[last.hi++] = item;
+		N++;
+	}
+
+	public int popLeft() {
+		if (N == 0)
+			throw new NoSuchElementException();
+		Chunk c = first;
+		int item = c.items[c.lo++];
+		N--;
+		if (c.lo == c.hi) {
+			unlink(c);
+			spare = c;
+		}
+		return item;
+	}
+
+	public int popRight() {
+		if (N == 0)
+			throw new NoSuchElementException();
+		Chunk c = last;
+		int item = c.items[--c.hi];
+		N--;
+		if (c.lo == c.hi) {
+			unlink(c);
+			spare = c;
+		}
+		return item;
+	}
+
+	// if a and the chunk after it fit in one chunk, move them all into a
+	private void mergeWithNext(Chunk a) {
+		Chunk b = a.next;
+		if (b == null || a.size() + b.size() > CHUNK)
+			return;
+		if (a.hi + b.size() > CHUNK) {
+			System.arraycopy(a.items, a.lo, a.items, 0, a.size());
+			a.hi -= a.lo;
+			a.lo = 0;
+		}
+		System.arraycopy(b.items, b.lo, a.items, a.hi, b.size());
+		a.hi += b.size();
+		unlink(b);
+	}
+
+	// Move the items of "that" to the right end of this deque by splicing its
+	// chunks onto this chain; after execution, "that" is empty.
+	// No loop over the items: at most one chunk's worth is copied, at the seam.
+	public void concat(MyChunkedDeque that) {
+		if (that == this)
+			throw new IllegalArgumentException();
+		if (that.isEmpty()) {
+			return;
+		} else if (this.isEmpty()) {
+			this.first = that.first;
+			this.last = that.last;
+		} else {
+			Chunk seam = this.last;
+			seam.next = that.first;
+			that.first.prev = seam;
+			this.last = that.last;
+			mergeWithNext(seam);
+		}
+		this.N += that.N;
+		that.N = 0;
+		that.first = null;
+		that.last = null;
+	}
+
+	// Delete and return the kth element from the left.
+	// Whole chunks are skipped from whichever end is nearer.
+	public int delete(int k) {
+		if (k < 0 || k >= N)
+			throw new IllegalArgumentException();
+		Chunk c;
+		int offset; // position of the item within c
+		if (k < N / 2) {
+			c = first;
+			offset = k;
+			while (offset >= c.size()) {
+				offset -= c.size();
+				c = c.next;
+			}
+		} else {
+			c = last;
+			offset = N - 1 - k; // from the right end of c
+			while (offset >= c.size()) {
+				offset -= c.size();
+				c = c.prev;
+			}
+			offset = c.size() - 1 - offset;
+		}
+		int at = c.lo + offset;
+		int item = c.items[at];
+		if (offset < c.size() / 2) {
+			System.arraycopy(c.items, c.lo, c.items, c.lo + 1, offset);
+			c.lo++;
+		} else {
+			System.arraycopy(c.items, at + 1, c.items, at, c.hi - at - 1);
+			c.hi--;
+		}
+		N--;
+		Chunk prev = c.prev;
+		if (c.size() == 0)
+			unlink(c);
+		else
+			mergeWithNext(c);
+		if (prev != null)
+			mergeWithNext(prev);
+		return item;
+	}
+
+	// number of chunks in the chain
+	int chunks() {
+		int count = 0;
+		for (Chunk c = first; c != null; c = c.next)
+			count++;
+		return count;
+	}
+
+	public String toString() {
+		if (N == 0)
+			return "[]";
+		StringBuilder sb = new StringBuilder("[");
+		String separator = "";
+		for (Chunk c = first; c != null; c = c.next) {
+			for (int i = c.lo; i < c.hi; i++) {
+				sb.append(separator);
+				sb.append(c.items[i]);
+				separator = " ";
+			}
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+
+	private void checkInvariants() {
+		if ((N == 0) != (first == null) || (first == null) != (last == null))
+			throw new Error("N=" + N + " disagrees with first/last");
+		int count = 0;
+		Chunk prev = null;
+		for (Chunk c = first; c != null; c = c.next) {
+			if (c.prev != prev)
+				throw new Error("broken prev link");
+			if (c.lo < 0 || c.hi > CHUNK || c.lo >= c.hi)
+				throw new Error("chunk holds items[" + c.lo + ".." + c.hi + ")");
+			count += c.size();
+			prev = c;
+		}
+		if (prev != last)
+			throw new Error("last is not the end of the chain");
+		if (count != N)
+			throw new Error("chunks hold " + count + " items, N=" + N);
+	}
+
+	private void check(String expected) {
+		checkInvariants();
+		if (expected != null) {
+			if (!expected.equals(this.toString()))
+				throw new Error("Expected \"" + expected + "\", got \"" + this + "\"");
+		}
+		StdOut.println(this);
+	}
+
+	private void check(int iExpected, int iActual, String expected) {
+		if (iExpected != iActual)
+			throw new Error("Expected \"" + iExpected + "\", got \"" + iActual + "\"");
+		check(expected);
+	}
+
+	// random operations, including concat and delete across many chunks,
+	// must give the same results as a java.util.ArrayDeque
+	private static void randomTest() {
+		Random random = new Random(42);
+		MyChunkedDeque d = new MyChunkedDeque();
+		ArrayDeque<Integer> expected = new ArrayDeque<>();
+		for (int op = 0; op < 100000; op++) {
+			int choice = random.nextInt(100);
+			int item = random.nextInt(1000);
+			if (choice < 25) {
+				d.pushLeft(item);
+				expected.addFirst(item);
+			} else if (choice < 50) {
+				d.pushRight(item);
+				expected.addLast(item);
+			} else if (choice < 52) {
+				MyChunkedDeque that = new MyChunkedDeque();
+				ArrayDeque<Integer> thatExpected = new ArrayDeque<>();
+				int n = random.nextInt(3 * CHUNK);
+				for (int i = 0; i < n; i++) {
+					if (random.nextBoolean()) { that.pushLeft(i); thatExpected.addFirst(i); }
+					else { that.pushRight(i); thatExpected.addLast(i); }
+				}
+				for (int i = 0; i < n / 3; i++)
+					if (that.popLeft() != thatExpected.removeFirst())
+						throw new Error("popLeft differs at op " + op);
+				expected.addAll(thatExpected);
+				d.concat(that);
+				that.checkInvariants();
+			} else if (expected.isEmpty()) {
+				continue;
+			} else if (choice < 68) {
+				if (d.popLeft() != expected.removeFirst())
+					throw new Error("popLeft differs at op " + op);
+			} else if (choice < 84) {
+				if (d.popRight() != expected.removeLast())
+					throw new Error("popRight differs at op " + op);
+			} else {
+				int k = random.nextInt(expected.size());
+				Integer[] items = expected.toArray(new Integer[0]);
+				expected.clear();
+				for (int i = 0; i < items.length; i++)
+					if (i != k)
+						expected.addLast(items[i]);
+				if (d.delete(k) != items[k])
+					throw new Error("delete differs at op " + op);
+			}
+			d.checkInvariants();
+			if (d.size() != expected.size())
+				throw new Error("size differs at op " + op);
+		}
+		StdOut.println("agrees with java.util.ArrayDeque on 100000 random operations ("
+				+ d.size() + " items in " + d.chunks() + " chunks)");
+	}
+
+	public static void main(String args[]) {
+		MyChunkedDeque d1, d2, d3;
+		Integer k;
+
+		////////////////////////////////////////////////////////////////////
+		// push/pop tests
+		////////////////////////////////////////////////////////////////////
+		d1 = new MyChunkedDeque();
+		d1.pushLeft(11);
+		d1.check("[11]");
+		d1.pushLeft(12);
+		d1.check("[12 11]");
+		d1.pushLeft(13);
+		d1.check("[13 12 11]");
+		k = d1.popLeft();
+		d1.check(13, k, "[12 11]");
+		k = d1.popLeft();
+		d1.check(12, k, "[11]");
+		k = d1.popLeft();
+		d1.check(11, k, "[]");
+
+		d1 = new MyChunkedDeque();
+		d1.pushRight(11);
+		d1.check("[11]");
+		d1.pushRight(12);
+		d1.check("[11 12]");
+		d1.pushRight(13);
+		d1.check("[11 12 13]");
+		k = d1.popRight();
+		d1.check(13, k, "[11 12]");
+		k = d1.popRight();
+		d1.check(12, k, "[11]");
+		k = d1.popRight();
+		d1.check(11, k, "[]");
+
+		////////////////////////////////////////////////////////////////////
+		// test exceptions
+		////////////////////////////////////////////////////////////////////
+		try {
+			d1.popLeft();
+			throw new Error("Expected exception");
+		} catch (NoSuchElementException e) {
+		}
+
+		try {
+			d1.popRight();
+			throw new Error("Expected exception");
+		} catch (NoSuchElementException e) {
+		}
+
+		////////////////////////////////////////////////////////////////////
+		// concat tests (and more push/pop tests)
+		////////////////////////////////////////////////////////////////////
+		d1 = new MyChunkedDeque();
+		d1.concat(new MyChunkedDeque());
+		d1.check("[]");
+		d1.pushLeft(11);
+		d1.concat(new MyChunkedDeque());
+		d1.check("[11]");
+
+		d1 = new MyChunkedDeque();
+		d2 = new MyChunkedDeque();
+		d2.pushLeft(11);
+		d1.concat(d2);
+		d1.check("[11]");
+
+		d1 = new MyChunkedDeque();
+		for (int i = 10; i < 15; i++) {
+			d1.pushLeft(i);
+			d1.checkInvariants();
+		}
+		for (int i = 20; i < 25; i++) {
+			d1.pushRight(i);
+			d1.checkInvariants();
+		}
+		d1.check("[14 13 12 11 10 20 21 22 23 24]");
+		d2 = new MyChunkedDeque();
+		d1.concat(d2);
+		d1.check("[14 13 12 11 10 20 21 22 23 24]");
+		d2.check("[]");
+
+		for (int i = 30; i < 35; i++) {
+			d2.pushLeft(i);
+			d2.checkInvariants();
+		}
+		for (int i = 40; i < 45; i++) {
+			d2.pushRight(i);
+			d2.checkInvariants();
+		}
+		d2.check("[34 33 32 31 30 40 41 42 43 44]");
+
+		d3 = new MyChunkedDeque();
+		d2.concat(d3);
+		d2.check("[34 33 32 31 30 40 41 42 43 44]");
+		d3.check("[]");
+
+		d1.concat(d2);
+		d1.check("[14 13 12 11 10 20 21 22 23 24 34 33 32 31 30 40 41 42 43 44]");
+		d2.check("[]");
+		if (d1.chunks() != 1)
+			throw new Error("Expected the seam chunks to merge, got " + d1.chunks() + " chunks");
+		for (int i = 0; i < 20; i++) {
+			d1.popLeft();
+			d1.checkInvariants();
+		}
+
+		////////////////////////////////////////////////////////////////////
+		// delete tests
+		////////////////////////////////////////////////////////////////////
+		d1 = new MyChunkedDeque();
+		d1.pushLeft(11);
+		k = d1.delete(0);
+		d1.check(11, k, "[]");
+		for (int i = 10; i < 20; i++) {
+			d1.pushRight(i);
+			d1.checkInvariants();
+		}
+		k = d1.delete(0);
+		d1.check(10, k, "[11 12 13 14 15 16 17 18 19]");
+		k = d1.delete(8);
+		d1.check(19, k, "[11 12 13 14 15 16 17 18]");
+		k = d1.delete(4);
+		d1.check(15, k, "[11 12 13 14 16 17 18]");
+		k = d1.delete(5);
+		d1.check(17, k, "[11 12 13 14 16 18]");
+		k = d1.delete(1);
+		d1.check(12, k, "[11 13 14 16 18]");
+		k = d1.delete(0);
+		d1.check(11, k, "[13 14 16 18]");
+		k = d1.delete(3);
+		d1.check(18, k, "[13 14 16]");
+		k = d1.delete(1);
+		d1.check(14, k, "[13 16]");
+		k = d1.delete(0);
+		d1.check(13, k, "[16]");
+		k = d1.delete(0);
+		d1.check(16, k, "[]");
+
+		randomTest();
+	}
+}
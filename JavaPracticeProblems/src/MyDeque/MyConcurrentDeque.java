@@ -0,0 +1,265 @@
+package MyDeque;
+
+import stdlib.*;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free work-stealing deque of ints (Chase and Lev, "Dynamic Circular
+ * Work-Stealing Deque", SPAA 2005).
+ *
+ * One owner thread calls pushLeft and popLeft; any number of thieves call
+ * popRight concurrently. The items live in a power-of-two int[] ring
+ * indexed by two ever-increasing counters: bottom (the owner's end, written
+ * only by the owner) and top (the thieves' end, advanced by CAS). The
+ * owner only races with thieves for the last item, so pushLeft never
+ * synchronizes and popLeft needs a CAS only when one item is left.
+ *
+ * Java 8 has no VarHandles, so the fences come from volatile fields: an
+ * item is written before the volatile write of bottom that publishes it,
+ * and the owner's volatile write of bottom in popLeft comes before its
+ * volatile read of top (the store-load order the algorithm needs). The
+ * ring grows by copying into a new array, published through the volatile
+ * field a; a thief still reading the old array either reads a valid item
+ * or loses its CAS. The ring never shrinks.
+ */
+public class MyConcurrentDeque {
+	private static final int MIN_CAPACITY = 16;
+	private static final long EMPTY = Long.MIN_VALUE; // returned by take*, never an int
+
+	private volatile int[] a = new int[MIN_CAPACITY];
+	private volatile long bottom = 0;              // index pushLeft writes next; owner only
+	private final AtomicLong top = new AtomicLong(); // index popRight takes next
+
+	// number of items; only a snapshot while thieves are active
+	public int size() {
+		long n = bottom - top.get();
+		return n < 0 ? 0 : (int) n;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	// copy the items at indices t..b-1 into a ring twice as large
+	private int[] grow(int[] old, long t, long b) {
+		int[] array = new int[2 * old.length];
+		for (long i = t; i < b; i++)
+			array[(int) i & (array.length - 1)] = old[(int) i & (old.length - 1)];
+		a = array;
+		return array;
+	}
+
+	// owner only
+	public void pushLeft(int item) {
+		long b = bottom;
+		long t = top.get();
+		int[] array = a;
+		if (b - t >= array.length - 1)
+			array = grow(array, t, b);
+		array[(int) b & (array.length - 1)] = item;
+		bottom = b + 1;
+	}
+
+	// owner only: the item pushed most recently, or EMPTY if there is none
+	private long takeLeft() {
+		long b = bottom - 1;
+		int[] array = a;
+		bottom = b;
+		long t = top.get();
+		if (t > b) { // already empty
+			bottom = b + 1;
+			return EMPTY;
+		}
+		int item = array[(int) b & (array.length - 1)];
+		if (t == b) { // the last item: race the thieves for it
+			boolean won = top.compareAndSet(t, t + 1);
+			bottom = b + 1;
+			if (!won)
+				return EMPTY;
+		}
+		return item;
+	}
+
+	// any thread: the oldest item, or EMPTY if there is none.
+	// A lost CAS means another thread took that item, so try the next one.
+	private long takeRight() {
+		while (true) {
+			long t = top.get();
+			long b = bottom;
+			if (t >= b)
+				return EMPTY;
+			int[] array = a;
+			int item = array[(int) t & (array.length - 1)];
+			if (top.compareAndSet(t, t + 1))
+				return item;
+		}
+	}
+
+	// owner only
+	public int popLeft() {
+		long item = takeLeft();
+		if (item == EMPTY)
+			throw new NoSuchElementException();
+		return (int) item;
+	}
+
+	// owner only: as popLeft, but return ifEmpty instead of throwing
+	public int pollLeft(int ifEmpty) {
+		long item = takeLeft();
+		return item == EMPTY ? ifEmpty : (int) item;
+	}
+
+	// any thread
+	public int popRight() {
+		long item = takeRight();
+		if (item == EMPTY)
+			throw new NoSuchElementException();
+		return (int) item;
+	}
+
+	// any thread: as popRight, but return ifEmpty instead of throwing
+	public int pollRight(int ifEmpty) {
+		long item = takeRight();
+		return item == EMPTY ? ifEmpty : (int) item;
+	}
+
+	// the queue operations of a work-stealing benchmark, so both deques run the same loops
+	private interface WorkQueue {
+		void push(int item);    // owner
+		int pollOwner();        // owner, -1 if empty
+		int pollThief();        // any thread, -1 if empty
+	}
+
+	private static WorkQueue chaseLev() {
+		MyConcurrentDeque d = new MyConcurrentDeque();
+		return new WorkQueue() {
+			public void push(int item) { d.pushLeft(item); }
+			public int pollOwner() { return d.pollLeft(-1); }
+			public int pollThief() { return d.pollRight(-1); }
+		};
+	}
+
+	private static WorkQueue linked() {
+		ConcurrentLinkedDeque<Integer> d = new ConcurrentLinkedDeque<>();
+		return new WorkQueue() {
+			public void push(int item) { d.addFirst(item); }
+			public int pollOwner() { Integer item = d.pollFirst(); return item == null ? -1 : item; }
+			public int pollThief() { Integer item = d.pollLast(); return item == null ? -1 : item; }
+		};
+	}
+
+	// called with each item taken by thread (0 is the owner); pushed is the
+	// item the owner had just pushed when it popped this one, or -1
+	private interface Taken {
+		void taken(int thread, int item, int pushed);
+	}
+
+	// The owner pushes 0..M-1, popping again after every ownerPopEvery-th push,
+	// while thieves steal; once it has pushed everything the owner drains the
+	// rest.  Returns the elapsed seconds.
+
+	private static double run(WorkQueue q, int M, int thieves, int ownerPopEvery, Taken taken) throws InterruptedException {
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicLong consumed = new AtomicLong();
+		Thread[] threads = new Thread[thieves];
+		for (int k = 0; k < thieves; k++) {
+			final int thread = k + 1;
+			threads[k] = new Thread(() -> {
+				try { start.await(); } catch (InterruptedException e) { return; }
+				while (consumed.get() < M) {
+					int item = q.pollThief();
+					if (item < 0) { Thread.yield(); continue; }
+					taken.taken(thread, item, -1);
+					consumed.incrementAndGet();
+				}
+			});
+			threads[k].start();
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (int i = 0; i < M; i++) {
+			q.push(i);
+			if (i % ownerPopEvery == 0) {
+				int item = q.pollOwner();
+				if (item >= 0) { taken.taken(0, item, i); consumed.incrementAndGet(); }
+			}
+		}
+		while (consumed.get() < M) {
+			int item = q.pollOwner();
+			if (item >= 0) { taken.taken(0, item, -1); consumed.incrementAndGet(); }
+			else Thread.yield();
+		}
+		for (Thread t : threads)
+			t.join();
+		return (System.nanoTime() - begin) / 1e9;
+	}
+
+	// every item must be taken exactly once; each thief must steal in push order
+	// (the thieves' end always holds the oldest item); and an owner pop right
+	// after pushing i must return i unless a thief stole it first
+	private static void stressTest(int M, int thieves) throws InterruptedException {
+		for (int round = 0; round < 10; round++) {
+			AtomicIntegerArray count = new AtomicIntegerArray(M);
+			int[] lastStolen = new int[thieves + 1];
+			Arrays.fill(lastStolen, -1);
+			String[] error = new String[1];
+			int ownerPopEvery = 1 + round % 3;
+			run(chaseLev(), M, thieves, ownerPopEvery, (thread, item, pushed) -> {
+				if (count.getAndIncrement(item) != 0)
+					error[0] = "item " + item + " taken twice";
+				if (thread > 0) {
+					if (item <= lastStolen[thread])
+						error[0] = "thief " + thread + " stole " + item + " after " + lastStolen[thread];
+					lastStolen[thread] = item;
+				} else if (pushed >= 0 && item != pushed) {
+					error[0] = "owner pushed " + pushed + " but popped " + item;
+				}
+			});
+			if (error[0] != null)
+				throw new Error(error[0]);
+			for (int i = 0; i < M; i++)
+				if (count.get(i) != 1)
+					throw new Error("item " + i + " taken " + count.get(i) + " times");
+		}
+		StdOut.format("stress test passed: 1 owner, %d thieves, %d items, 10 rounds\n", thieves, M);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		final int M = 1 << 20;
+		final int MAX_THIEVES = Math.max(4, Runtime.getRuntime().availableProcessors() - 1);
+
+		// the sequential API first
+		MyConcurrentDeque d = new MyConcurrentDeque();
+		for (int i = 0; i < 100; i++)
+			d.pushLeft(i);
+		if (d.popRight() != 0 || d.popLeft() != 99 || d.size() != 98)
+			throw new Error("Expected popRight 0, popLeft 99, size 98");
+		while (!d.isEmpty())
+			d.popLeft();
+		try {
+			d.popRight();
+			throw new Error("Expected exception");
+		} catch (NoSuchElementException e) {
+		}
+		if (d.pollLeft(-7) != -7)
+			throw new Error("Expected pollLeft to return its argument when empty");
+
+		stressTest(M, 2 * MAX_THIEVES); // oversubscribe so threads interleave even on few cores
+
+		// owner pops after every other push; the thieves take the rest
+		StdOut.format("%8s %22s %22s\n", "thieves", "MyConcurrentDeque(M/s)", "ConcurrentLinkedDeque(M/s)");
+		Taken ignore = (thread, item, pushed) -> { };
+		for (int thieves = 1; thieves <= MAX_THIEVES; thieves += thieves) {
+			run(chaseLev(), M, thieves, 2, ignore); // warmup
+			run(linked(), M, thieves, 2, ignore);
+			double chaseLev = run(chaseLev(), 4 * M, thieves, 2, ignore);
+			double linked = run(linked(), 4 * M, thieves, 2, ignore);
+			StdOut.format("%8d %22.2f %22.2f\n", thieves, 4 * M / chaseLev / 1e6, 4 * M / linked / 1e6);
+		}
+	}
+}
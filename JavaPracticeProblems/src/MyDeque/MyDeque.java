@@ -3,7 +3,14 @@ package MyDeque;
 // Exercise 1.3.33
 
 import stdlib.*;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * This is a skeleton file for your homework. Edit the sections marked TODO. You
@@ -101,6 +108,122 @@ public class MyDeque {
 		return goodbye.item;
 	}
 
+	// Push a[off..off+len-1] on the right, in order. The new nodes are linked
+	// into a chain first and joined to the deque once.
+	public void pushAllRight(int[] a, int off, int len) {
+		if (off < 0 || len < 0 || off > a.length - len)
+			throw new IndexOutOfBoundsException("off " + off + ", len " + len + ", length " + a.length);
+		if (len == 0)
+			return;
+		Node head = new Node();
+		head.item = a[off];
+		Node tail = head;
+		for (int i = off + 1; i < off + len; i++) {
+			Node x = new Node();
+			x.item = a[i];
+			x.prev = tail;
+			tail.next = x;
+			tail = x;
+		}
+		if (last == null) {
+			first = head;
+		} else {
+			last.next = head;
+			head.prev = last;
+		}
+		last = tail;
+		N += len;
+	}
+
+	// Pop items from the left into a[0], a[1], ... until the deque is empty or
+	// a is full, and return the number of items moved. The deque is cut once,
+	// after the last item moved.
+	public int drainTo(int[] a) {
+		int n = Math.min(N, a.length);
+		Node x = first;
+		for (int i = 0; i < n; i++) {
+			a[i] = x.item;
+			x = x.next;
+		}
+		first = x;
+		if (x == null)
+			last = null;
+		else
+			x.prev = null;
+		N -= n;
+		return n;
+	}
+
+	// The items from left to right. The deque must not be changed while the
+	// stream is in use.
+	public IntStream stream() {
+		return StreamSupport.intStream(new NodeSpliterator(first, N), false);
+	}
+
+	// Spliterator over the count nodes starting at x. The count is exact, so
+	// it and every split of it are SIZED. A linked list has no random
+	// access, so trySplit does not look for the middle. Like
+	// java.util.LinkedList's spliterator, it copies the next batch of items
+	// into an int[] and returns an array spliterator over them, which splits
+	// evenly. Each batch is BATCH_UNIT items longer than the one before, up
+	// to MAX_BATCH. Every item is copied at most once, so splitting costs
+	// O(1) per item, and it never walks a node twice.
+	static class NodeSpliterator implements Spliterator.OfInt {
+		private static final int BATCH_UNIT = 1 << 10; // batch size increment
+		private static final int MAX_BATCH = 1 << 25;  // max batch size
+		private Node x;
+		private int count;
+		private int batch; // size of the last batch split off
+
+		NodeSpliterator(Node x, int count) {
+			this.x = x;
+			this.count = count;
+		}
+
+		public boolean tryAdvance(IntConsumer action) {
+			if (count == 0)
+				return false;
+			action.accept(x.item);
+			x = x.next;
+			count--;
+			return true;
+		}
+
+		public void forEachRemaining(IntConsumer action) {
+			Node y = x;
+			for (int i = count; i > 0; i--) {
+				action.accept(y.item);
+				y = y.next;
+			}
+			x = y;
+			count = 0;
+		}
+
+		public Spliterator.OfInt trySplit() {
+			if (count <= 1)
+				return null;
+			int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), count);
+			int[] a = new int[n];
+			Node y = x;
+			for (int i = 0; i < n; i++) {
+				a[i] = y.item;
+				y = y.next;
+			}
+			x = y;
+			count -= n;
+			batch = n;
+			return Spliterators.spliterator(a, 0, n, ORDERED | NONNULL);
+		}
+
+		public long estimateSize() {
+			return count;
+		}
+
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL;
+		}
+	}
+
 	// exercise 1.3.47
 	//
 	// The concat method should take the Nodes from "that"
@@ -367,5 +490,48 @@ public class MyDeque {
 		d1.delete(0);
 		d1.check("[18]");
 		d1.delete(0);
+
+		////////////////////////////////////////////////////////////////////
+		// bulk and stream tests
+		////////////////////////////////////////////////////////////////////
+		d1 = new MyDeque();
+		d1.pushAllRight(new int[] { 1, 2, 3, 4, 5 }, 1, 3);
+		d1.check("[2 3 4]");
+		d1.pushAllRight(new int[] { 9 }, 0, 0);
+		d1.check("[2 3 4]");
+		d1.pushLeft(1);
+		d1.pushAllRight(new int[] { 5, 6 }, 0, 2);
+		d1.check("[1 2 3 4 5 6]");
+		try {
+			d1.pushAllRight(new int[2], 1, 2);
+			throw new Error("Expected exception");
+		} catch (IndexOutOfBoundsException e) {
+		}
+		int[] drained = new int[4];
+		d1.check(4, d1.drainTo(drained), "[5 6]");
+		if (!Arrays.equals(drained, new int[] { 1, 2, 3, 4 }))
+			throw new Error("Expected [1, 2, 3, 4], got " + Arrays.toString(drained));
+		d1.check(2, d1.drainTo(drained), "[]");
+		d1.check(0, d1.drainTo(drained), "[]");
+		d1.pushRight(7);
+		d1.check("[7]");
+
+		// large enough that the parallel stream splits
+		final int M = 5000;
+		int[] items = new int[M];
+		for (int i = 0; i < M; i++)
+			items[i] = i;
+		d1 = new MyDeque();
+		d1.pushAllRight(items, 0, M);
+		long expected = (long) M * (M - 1) / 2;
+		if (d1.stream().asLongStream().sum() != expected || d1.stream().parallel().asLongStream().sum() != expected)
+			throw new Error("stream sum differs");
+		if (!Arrays.equals(d1.stream().parallel().toArray(), items))
+			throw new Error("parallel stream out of order");
+		String tail = d1.stream().parallel().skip(M - 3).boxed().collect(Collectors.toList()).toString();
+		if (!tail.equals("[" + (M - 3) + ", " + (M - 2) + ", " + (M - 1) + "]"))
+			throw new Error("parallel stream out of order");
+		if (d1.size() != M)
+			throw new Error("stream changed the deque");
 	}
 }
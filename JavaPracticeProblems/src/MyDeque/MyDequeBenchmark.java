@@ -0,0 +1,178 @@
+package MyDeque;
+
+import stdlib.*;
+import java.util.function.Supplier;
+
+/* **************************************************************************
+ *  Compilation:  javac MyDequeBenchmark.java
+ *  Execution:    java MyDequeBenchmark
+ *  Dependencies: MyDeque.java MyArrayDeque.java MyChunkedDeque.java StdOut.java Stopwatch.java
+ *
+ *  Doubling benchmark of the int deques.  For each N it reports
+ *
+ *    - queue:  nanoseconds per operation to pushRight N items, then popLeft them all
+ *    - steady: nanoseconds per operation for N pushLeft/popRight pairs on a
+ *              deque that holds N items throughout
+ *    - bytes:  heap bytes per item of a deque holding N items
+ *
+ *  and then, for a MyDeque of MAX_N items, the time of a sum of square
+ *  roots over its sequential and its parallel stream().
+ *
+ *  Each timing is repeated until it has run for at least MIN_TIME seconds,
+ *  after one untimed warmup round.  The heap figures come from
+ *  Runtime.totalMemory() - freeMemory() after System.gc(), so they are
+ *  estimates (noisy for small N), but the gap between the implementations
+ *  is far larger than their noise.
+ *
+ ****************************************************************************/
+
+public class MyDequeBenchmark {
+	private static final double MIN_TIME = 0.5; // seconds per measurement
+	private static final int MIN_N = 1 << 10;
+	private static final int MAX_N = 1 << 22;
+
+	// the operations the benchmark needs, so every deque can be driven by the same loops
+	interface IntDeque {
+		void pushLeft(int item);
+		void pushRight(int item);
+		int popLeft();
+		int popRight();
+	}
+
+	private static class Implementation {
+		final String name;
+		final Supplier<IntDeque> create;
+
+		Implementation(String name, Supplier<IntDeque> create) {
+			this.name = name;
+			this.create = create;
+		}
+	}
+
+	private static final Implementation[] IMPLEMENTATIONS = {
+			new Implementation("MyDeque", () -> {
+				MyDeque d = new MyDeque();
+				return new IntDeque() {
+					public void pushLeft(int item) { d.pushLeft(item); }
+					public void pushRight(int item) { d.pushRight(item); }
+					public int popLeft() { return d.popLeft(); }
+					public int popRight() { return d.popRight(); }
+				};
+			}),
+			new Implementation("MyArrayDeque", () -> {
+				MyArrayDeque d = new MyArrayDeque();
+				return new IntDeque() {
+					public void pushLeft(int item) { d.pushLeft(item); }
+					public void pushRight(int item) { d.pushRight(item); }
+					public int popLeft() { return d.popLeft(); }
+					public int popRight() { return d.popRight(); }
+				};
+			}),
+			new Implementation("MyChunkedDeque", () -> {
+				MyChunkedDeque d = new MyChunkedDeque();
+				return new IntDeque() {
+					public void pushLeft(int item) { d.pushLeft(item); }
+					public void pushRight(int item) { d.pushRight(item); }
+					public int popLeft() { return d.popLeft(); }
+					public int popRight() { return d.popRight(); }
+				};
+			}),
+	};
+
+	// keeps results alive so the JIT cannot drop the work
+	private static long sink;
+
+	private interface Workload {
+		// run the workload once and return the number of deque operations
+		long run(Implementation impl, int N);
+	}
+
+	private static long queue(Implementation impl, int N) {
+		IntDeque d = impl.create.get();
+		for (int i = 0; i < N; i++)
+			d.pushRight(i);
+		for (int i = 0; i < N; i++)
+			sink += d.popLeft();
+		return 2L * N;
+	}
+
+	private static long steady(Implementation impl, int N) {
+		IntDeque d = impl.create.get();
+		for (int i = 0; i < N; i++)
+			d.pushRight(i);
+		for (int i = 0; i < N; i++) {
+			d.pushLeft(i);
+			sink += d.popRight();
+		}
+		return 2L * N;
+	}
+
+	// nanoseconds per operation of workload, after one warmup round
+	private static double time(Workload workload, Implementation impl, int N) {
+		workload.run(impl, N);
+		long ops = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			ops += workload.run(impl, N);
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MIN_TIME * 1e9);
+		return elapsed / (double) ops;
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	// heap bytes per item of a deque holding N items
+	// (measured as the heap freed when the deque becomes garbage)
+	private static double bytesPerItem(Implementation impl, int N) {
+		IntDeque d = impl.create.get();
+		for (int i = 0; i < N; i++)
+			d.pushRight(i);
+		long full = usedMemory();
+		sink += d.popLeft();
+		d = null;
+		long empty = usedMemory();
+		return (full - empty) / (double) N;
+	}
+
+	// seconds for a sum of square roots over MyDeque.stream(), sequential and parallel
+	private static void streams(int N) {
+		MyDeque d = new MyDeque();
+		for (int i = 0; i < N; i++)
+			d.pushRight(i);
+		double sequential = 0, parallel = 0;
+		for (int round = 0; round < 3; round++) {
+			Stopwatch sw = new Stopwatch();
+			double s = d.stream().mapToDouble(Math::sqrt).sum();
+			sequential = sw.elapsedTime();
+			sw = new Stopwatch();
+			double p = d.stream().parallel().mapToDouble(Math::sqrt).sum();
+			parallel = sw.elapsedTime();
+			if (Math.abs(s - p) > 1e-6 * s)
+				throw new Error("parallel sum differs");
+		}
+		StdOut.format("sum of sqrt over MyDeque.stream() of %d items: sequential %.3fs, parallel %.3fs on %d cores\n", N,
+				sequential, parallel, Runtime.getRuntime().availableProcessors());
+	}
+
+	public static void main(String[] args) {
+		StdOut.format("%8s", "N");
+		for (Implementation impl : IMPLEMENTATIONS)
+			StdOut.format("  %14s queue steady bytes", impl.name);
+		StdOut.println();
+		for (int N = MIN_N; N <= MAX_N; N += N) {
+			StdOut.format("%8d", N);
+			for (Implementation impl : IMPLEMENTATIONS)
+				StdOut.format("  %14s %5.1f %6.1f %5.1f", "",
+						time(MyDequeBenchmark::queue, impl, N), time(MyDequeBenchmark::steady, impl, N), bytesPerItem(impl, N));
+			StdOut.println();
+		}
+		streams(MAX_N);
+		if (sink == 42) StdOut.println();
+	}
+}
@@ -0,0 +1,646 @@
+package MyDeque;
+
+import stdlib.*;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * MyDeque with get(k), delete(k) and insert(k, item) in O(log N) expected
+ * time: an implicit treap (a randomized balanced tree ordered by position,
+ * not by key) whose nodes are blocks of up to B ints, plus an int[] buffer
+ * at each end.
+ *
+ * Each tree node stores its block and the number of items in its subtree,
+ * so finding the item k from the left descends from the root subtracting
+ * subtree sizes, O(log(N/B)) steps, and inserting or deleting inside a
+ * block moves at most B items. A full block splits into two halves; a block
+ * that runs empty is removed.
+ *
+ * Pushes and pops touch only the end buffers. A full end buffer hands half
+ * of its items to the tree as one new block, and an empty one takes a whole
+ * block back from the tree, both O(log N). After a flush, at least B/2
+ * pushes or pops pass before the next tree operation on that side. After
+ * a refill, as many pops pass as the block held. Every block starts with
+ * at least B/2 items; one holds fewer only after deletes, or if it came
+ * from a short end buffer in concat, and those operations pay for the
+ * refill. So pushes and pops are amortized O(1), since log N is below B
+ * for any N that fits in an int.
+ *
+ * concat turns the facing end buffers into blocks and merges the two trees,
+ * O(log N) expected.
+ */
+public class MyIndexedDeque {
+	static final int B = 64; // block capacity
+
+	static class Node {
+		final int[] items;
+		int n;        // items in this block
+		int size;     // items in this subtree
+		final int priority;
+		Node left, right;
+
+		Node(int[] items, int n, int priority) {
+			this.items = items;
+			this.n = n;
+			this.size = n;
+			this.priority = priority;
+		}
+	}
+
+	private final Random random = new Random();
+	private Node root;
+	private int[] lbuf = new int[B]; // left end, reversed: lbuf[ln-1] is the leftmost item
+	private int ln;
+	private int[] rbuf = new int[B]; // right end, in order: rbuf[rn-1] is the rightmost item
+	private int rn;
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public int size() {
+		return ln + size(root) + rn;
+	}
+
+	private static int size(Node t) {
+		return t == null ? 0 : t.size;
+	}
+
+	private static void update(Node t) {
+		t.size = size(t.left) + t.n + size(t.right);
+	}
+
+	private Node block(int[] items, int n) {
+		return new Node(items, n, random.nextInt());
+	}
+
+	////////////////////////////////////////////////////////////////////
+	// treap operations; each returns the new root of the subtree
+	////////////////////////////////////////////////////////////////////
+
+	// all of a, then all of b
+	private static Node merge(Node a, Node b) {
+		if (a == null) return b;
+		if (b == null) return a;
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			update(a);
+			return a;
+		} else {
+			b.left = merge(a, b.left);
+			update(b);
+			return b;
+		}
+	}
+
+	private static Node rotateRight(Node t) {
+		Node l = t.left;
+		t.left = l.right;
+		l.right = t;
+		update(t);
+		update(l);
+		return l;
+	}
+
+	private static Node rotateLeft(Node t) {
+		Node r = t.right;
+		t.right = r.left;
+		r.left = t;
+		update(t);
+		update(r);
+		return r;
+	}
+
+	private static Node leftmost(Node t) {
+		while (t.left != null)
+			t = t.left;
+		return t;
+	}
+
+	private static Node rightmost(Node t) {
+		while (t.right != null)
+			t = t.right;
+		return t;
+	}
+
+	private static Node removeLeftmost(Node t) {
+		if (t.left == null)
+			return t.right;
+		t.left = removeLeftmost(t.left);
+		update(t);
+		return t;
+	}
+
+	private static Node removeRightmost(Node t) {
+		if (t.right == null)
+			return t.left;
+		t.right = removeRightmost(t.right);
+		update(t);
+		return t;
+	}
+
+	// make the single node r the first node of t
+	private static Node insertLeftmost(Node t, Node r) {
+		if (t == null)
+			return r;
+		t.left = insertLeftmost(t.left, r);
+		if (t.left.priority > t.priority)
+			return rotateRight(t);
+		update(t);
+		return t;
+	}
+
+	// the item k from the left of t, 0 <= k < size(t)
+	private static int get(Node t, int k) {
+		while (true) {
+			int ls = size(t.left);
+			if (k < ls) {
+				t = t.left;
+			} else if (k < ls + t.n) {
+				return t.items[k - ls];
+			} else {
+				k -= ls + t.n;
+				t = t.right;
+			}
+		}
+	}
+
+	// remove the item k from the left of t, 0 <= k < size(t)
+	private static Node delete(Node t, int k) {
+		int ls = size(t.left);
+		if (k < ls) {
+			t.left = delete(t.left, k);
+		} else if (k < ls + t.n) {
+			int i = k - ls;
+			System.arraycopy(t.items, i + 1, t.items, i, t.n - i - 1);
+			if (--t.n == 0)
+				return merge(t.left, t.right);
+		} else {
+			t.right = delete(t.right, k - ls - t.n);
+		}
+		update(t);
+		return t;
+	}
+
+	// insert item so that it becomes the item k from the left, 0 <= k <= size(t)
+	private Node insert(Node t, int k, int item) {
+		int ls = size(t.left);
+		if (k < ls) {
+			t.left = insert(t.left, k, item);
+			if (t.left.priority > t.priority)
+				return rotateRight(t);
+		} else if (k <= ls + t.n) {
+			int i = k - ls;
+			if (t.n == B) { // split the block, the upper half going to a new next node
+				Node r = block(new int[B], B / 2);
+				System.arraycopy(t.items, B / 2, r.items, 0, B / 2);
+				t.n = B / 2;
+				if (i > B / 2) {
+					insertIntoBlock(r, i - B / 2, item);
+					r.size = r.n;
+				} else {
+					insertIntoBlock(t, i, item);
+				}
+				t.right = insertLeftmost(t.right, r);
+				if (t.right.priority > t.priority)
+					return rotateLeft(t);
+			} else {
+				insertIntoBlock(t, i, item);
+			}
+		} else {
+			t.right = insert(t.right, k - ls - t.n, item);
+			if (t.right.priority > t.priority)
+				return rotateLeft(t);
+		}
+		update(t);
+		return t;
+	}
+
+	private static void insertIntoBlock(Node t, int i, int item) {
+		System.arraycopy(t.items, i, t.items, i + 1, t.n - i);
+		t.items[i] = item;
+		t.n++;
+	}
+
+	////////////////////////////////////////////////////////////////////
+	// moving blocks between the end buffers and the tree
+	////////////////////////////////////////////////////////////////////
+
+	// Move the ln/2 items of the left buffer nearest the tree into a new
+	// first block of the tree.
+	private void flushLeft() {
+		int h = ln / 2;
+		int[] items = new int[B];
+		for (int i = 0; i < h; i++)
+			items[i] = lbuf[h - 1 - i];
+		System.arraycopy(lbuf, h, lbuf, 0, ln - h);
+		ln -= h;
+		root = merge(block(items, h), root);
+	}
+
+	// Move the rn/2 items of the right buffer nearest the tree into a new
+	// last block of the tree.
+	private void flushRight() {
+		int h = rn / 2;
+		int[] items = new int[B];
+		System.arraycopy(rbuf, 0, items, 0, h);
+		System.arraycopy(rbuf, h, rbuf, 0, rn - h);
+		rn -= h;
+		root = merge(root, block(items, h));
+	}
+
+	// Refill the empty left buffer: with the first block of the tree, or
+	// else with the left half of the right buffer.
+	private void refillLeft() {
+		if (root != null) {
+			Node t = leftmost(root);
+			root = removeLeftmost(root);
+			for (int i = 0; i < t.n; i++)
+				lbuf[i] = t.items[t.n - 1 - i];
+			ln = t.n;
+		} else {
+			int h = (rn + 1) / 2;
+			for (int i = 0; i < h; i++)
+				lbuf[i] = rbuf[h - 1 - i];
+			System.arraycopy(rbuf, h, rbuf, 0, rn - h);
+			ln = h;
+			rn -= h;
+		}
+	}
+
+	// Refill the empty right buffer: with the last block of the tree, or
+	// else with the right half of the left buffer.
+	private void refillRight() {
+		if (root != null) {
+			Node t = rightmost(root);
+			root = removeRightmost(root);
+			System.arraycopy(t.items, 0, rbuf, 0, t.n);
+			rn = t.n;
+		} else {
+			int h = (ln + 1) / 2;
+			for (int i = 0; i < h; i++)
+				rbuf[i] = lbuf[h - 1 - i];
+			System.arraycopy(lbuf, h, lbuf, 0, ln - h);
+			rn = h;
+			ln -= h;
+		}
+	}
+
+	public void pushLeft(int item) {
+		if (ln == B)
+			flushLeft();
+		lbuf[ln++] = item;
+	}
+
+	public void pushRight(int item) {
+		if (rn == B)
+			flushRight();
+		rbuf[rn++] = item;
+	}
+
+	public int popLeft() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		if (ln == 0)
+			refillLeft();
+		return lbuf[--ln];
+	}
+
+	public int popRight() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		if (rn == 0)
+			refillRight();
+		return rbuf[--rn];
+	}
+
+	// the item k from the left
+	public int get(int k) {
+		if (k < 0 || k >= size())
+			throw new IllegalArgumentException();
+		if (k < ln)
+			return lbuf[ln - 1 - k];
+		k -= ln;
+		if (k < size(root))
+			return get(root, k);
+		return rbuf[k - size(root)];
+	}
+
+	// Delete and return the kth element from the left.
+	public int delete(int k) {
+		int item = get(k);
+		if (k < ln) {
+			int i = ln - 1 - k;
+			System.arraycopy(lbuf, i + 1, lbuf, i, ln - i - 1);
+			ln--;
+		} else if (k - ln < size(root)) {
+			root = delete(root, k - ln);
+		} else {
+			int i = k - ln - size(root);
+			System.arraycopy(rbuf, i + 1, rbuf, i, rn - i - 1);
+			rn--;
+		}
+		return item;
+	}
+
+	// Insert item so that it becomes the kth element from the left,
+	// 0 <= k <= size().
+	public void insert(int k, int item) {
+		if (k < 0 || k > size())
+			throw new IllegalArgumentException();
+		if (k <= ln) {
+			if (ln == B) {
+				flushLeft();
+				insert(k, item);
+				return;
+			}
+			int i = ln - k;
+			System.arraycopy(lbuf, i, lbuf, i + 1, ln - i);
+			lbuf[i] = item;
+			ln++;
+		} else if (k - ln < size(root)) {
+			root = insert(root, k - ln, item);
+		} else {
+			if (rn == B) {
+				flushRight();
+				insert(k, item);
+				return;
+			}
+			int i = k - ln - size(root);
+			System.arraycopy(rbuf, i, rbuf, i + 1, rn - i);
+			rbuf[i] = item;
+			rn++;
+		}
+	}
+
+	// Move all the items of that to the right end of this; that becomes empty.
+	public void concat(MyIndexedDeque that) {
+		if (that == this)
+			throw new IllegalArgumentException();
+		Node middle = null;
+		if (this.rn > 0)
+			middle = block(this.rbuf, this.rn);
+		if (that.ln > 0) {
+			int[] items = new int[B];
+			for (int i = 0; i < that.ln; i++)
+				items[i] = that.lbuf[that.ln - 1 - i];
+			middle = merge(middle, block(items, that.ln));
+		}
+		root = merge(merge(root, middle), that.root);
+		rbuf = that.rbuf;
+		rn = that.rn;
+		that.root = null;
+		that.lbuf = new int[B];
+		that.ln = 0;
+		that.rbuf = new int[B];
+		that.rn = 0;
+	}
+
+	// number of blocks in the tree
+	int blocks() {
+		return blocks(root);
+	}
+
+	private static int blocks(Node t) {
+		return t == null ? 0 : blocks(t.left) + 1 + blocks(t.right);
+	}
+
+	// depth of the tree
+	int height() {
+		return height(root);
+	}
+
+	private static int height(Node t) {
+		return t == null ? 0 : 1 + Math.max(height(t.left), height(t.right));
+	}
+
+	public String toString() {
+		if (isEmpty())
+			return "[]";
+		StringBuilder sb = new StringBuilder("[");
+		for (int k = 0, n = size(); k < n; k++) {
+			if (k > 0)
+				sb.append(" ");
+			sb.append(get(k));
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+
+	private void checkInvariants() {
+		if (ln < 0 || ln > B || rn < 0 || rn > B)
+			throw new Error("end buffers hold " + ln + " and " + rn + " items");
+		checkInvariants(root);
+	}
+
+	private static void checkInvariants(Node t) {
+		if (t == null)
+			return;
+		if (t.n < 1 || t.n > B)
+			throw new Error("block holds " + t.n + " items");
+		if (t.size != size(t.left) + t.n + size(t.right))
+			throw new Error("subtree size " + t.size + " is wrong");
+		if ((t.left != null && t.left.priority > t.priority) || (t.right != null && t.right.priority > t.priority))
+			throw new Error("heap order broken");
+		checkInvariants(t.left);
+		checkInvariants(t.right);
+	}
+
+	private void check(String expected) {
+		checkInvariants();
+		if (expected != null) {
+			if (!expected.equals(this.toString()))
+				throw new Error("Expected \"" + expected + "\", got \"" + this + "\"");
+		}
+		StdOut.println(this);
+	}
+
+	private void check(int iExpected, int iActual, String expected) {
+		if (iExpected != iActual)
+			throw new Error("Expected \"" + iExpected + "\", got \"" + iActual + "\"");
+		check(expected);
+	}
+
+	// random operations at both ends and at random positions, including
+	// concat, must give the same results as a java.util.ArrayList
+	private static void randomTest() {
+		Random random = new Random(42);
+		MyIndexedDeque d = new MyIndexedDeque();
+		ArrayList<Integer> expected = new ArrayList<>();
+		for (int op = 0; op < 200000; op++) {
+			int choice = random.nextInt(100);
+			int item = random.nextInt(1000);
+			boolean grow = op % 20000 < 12000;
+			if (choice < (grow ? 15 : 10)) {
+				d.pushLeft(item);
+				expected.add(0, item);
+			} else if (choice < (grow ? 30 : 20)) {
+				d.pushRight(item);
+				expected.add(item);
+			} else if (choice < (grow ? 45 : 30)) {
+				int k = random.nextInt(expected.size() + 1);
+				d.insert(k, item);
+				expected.add(k, item);
+			} else if (choice < 31) {
+				MyIndexedDeque that = new MyIndexedDeque();
+				ArrayList<Integer> thatExpected = new ArrayList<>();
+				int n = random.nextInt(5 * B);
+				for (int i = 0; i < n; i++) {
+					if (random.nextBoolean()) { that.pushLeft(i); thatExpected.add(0, i); }
+					else { that.pushRight(i); thatExpected.add(i); }
+				}
+				for (int i = 0; i < n / 3; i++)
+					if (that.popLeft() != thatExpected.remove(0))
+						throw new Error("popLeft differs at op " + op);
+				expected.addAll(thatExpected);
+				d.concat(that);
+				if (!that.isEmpty())
+					throw new Error("concat left items behind");
+				that.checkInvariants();
+			} else if (expected.isEmpty()) {
+				continue;
+			} else if (choice < 50) {
+				int k = random.nextInt(expected.size());
+				if (d.get(k) != expected.get(k))
+					throw new Error("get differs at op " + op);
+			} else if (choice < 65) {
+				if (d.popLeft() != expected.remove(0))
+					throw new Error("popLeft differs at op " + op);
+			} else if (choice < 80) {
+				if (d.popRight() != expected.remove(expected.size() - 1))
+					throw new Error("popRight differs at op " + op);
+			} else {
+				int k = random.nextInt(expected.size());
+				if (d.delete(k) != expected.remove(k))
+					throw new Error("delete differs at op " + op);
+			}
+			if (op % 100 == 0)
+				d.checkInvariants();
+			if (d.size() != expected.size())
+				throw new Error("size differs at op " + op);
+		}
+		for (int k = 0; k < expected.size(); k++)
+			if (d.get(k) != expected.get(k))
+				throw new Error("get differs at the end");
+		StdOut.println("agrees with java.util.ArrayList on 200000 random operations ("
+				+ d.size() + " items in " + d.blocks() + " blocks, height " + d.height() + ")");
+	}
+
+	// seconds for M deletes at random positions, each followed by an insert
+	// at another random position, in a deque of N items
+	private static double deleteTrial(int N, int M, boolean indexed) {
+		Random random = new Random(N);
+		MyIndexedDeque d = new MyIndexedDeque();
+		MyDeque old = new MyDeque();
+		for (int i = 0; i < N; i++) {
+			if (indexed) d.pushRight(i);
+			else old.pushRight(i);
+		}
+		Stopwatch sw = new Stopwatch();
+		for (int i = 0; i < M; i++) {
+			if (indexed) {
+				d.delete(random.nextInt(N));
+				d.insert(random.nextInt(N), i);
+			} else {
+				old.delete(1 + random.nextInt(N - 2));
+				old.pushRight(i);
+			}
+		}
+		return sw.elapsedTime();
+	}
+
+	public static void main(String args[]) {
+		MyIndexedDeque d1, d2;
+		Integer k;
+
+		////////////////////////////////////////////////////////////////////
+		// push/pop tests
+		////////////////////////////////////////////////////////////////////
+		d1 = new MyIndexedDeque();
+		d1.pushLeft(11);
+		d1.check("[11]");
+		d1.pushLeft(12);
+		d1.check("[12 11]");
+		d1.pushRight(13);
+		d1.check("[12 11 13]");
+		k = d1.popRight();
+		d1.check(13, k, "[12 11]");
+		k = d1.popRight();
+		d1.check(11, k, "[12]");
+		k = d1.popRight();
+		d1.check(12, k, "[]");
+		try {
+			d1.popLeft();
+			throw new Error("Expected exception");
+		} catch (NoSuchElementException e) {
+		}
+		try {
+			d1.popRight();
+			throw new Error("Expected exception");
+		} catch (NoSuchElementException e) {
+		}
+
+		////////////////////////////////////////////////////////////////////
+		// get/insert/delete tests
+		////////////////////////////////////////////////////////////////////
+		d1 = new MyIndexedDeque();
+		for (int i = 10; i < 15; i++)
+			d1.pushRight(i);
+		d1.insert(0, 9);
+		d1.insert(6, 15);
+		d1.insert(3, 99);
+		d1.check("[9 10 11 99 12 13 14 15]");
+		d1.check(99, d1.get(3), "[9 10 11 99 12 13 14 15]");
+		d1.check(99, d1.delete(3), "[9 10 11 12 13 14 15]");
+		d1.check(9, d1.delete(0), "[10 11 12 13 14 15]");
+		d1.check(15, d1.delete(5), "[10 11 12 13 14]");
+		try {
+			d1.get(5);
+			throw new Error("Expected exception");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			d1.insert(6, 0);
+			throw new Error("Expected exception");
+		} catch (IllegalArgumentException e) {
+		}
+
+		////////////////////////////////////////////////////////////////////
+		// concat tests
+		////////////////////////////////////////////////////////////////////
+		d1 = new MyIndexedDeque();
+		d2 = new MyIndexedDeque();
+		d1.concat(d2);
+		d1.check("[]");
+		for (int i = 0; i < 3 * B; i++) {
+			d1.pushRight(i);
+			d2.pushLeft(-i);
+		}
+		d1.concat(d2);
+		d2.check("[]");
+		d1.checkInvariants();
+		if (d1.size() != 6 * B || d1.get(3 * B - 1) != 3 * B - 1 || d1.get(3 * B) != -(3 * B - 1) || d1.get(6 * B - 1) != 0)
+			throw new Error("concat misplaced items");
+		try {
+			d1.concat(d1);
+			throw new Error("Expected exception");
+		} catch (IllegalArgumentException e) {
+		}
+		if (d1.size() != 6 * B)
+			throw new Error("concat with itself changed the deque");
+		d1.checkInvariants();
+
+		randomTest();
+
+		// delete and insert at random positions; MyDeque.delete walks the list
+		deleteTrial(1 << 16, 10000, true);
+		deleteTrial(1 << 16, 1000, false);
+		StdOut.printf("%9s %14s %14s\n", "N", "indexed(us/op)", "MyDeque(us/op)");
+		for (int N = 1 << 16; N <= 1 << 22; N *= 4) {
+			double indexed = deleteTrial(N, 100000, true) / 100000 * 1e6;
+			double old = N <= 1 << 20 ? deleteTrial(N, 200, false) / 200 * 1e6 : Double.NaN;
+			StdOut.printf("%9d %14.3f %14.1f\n", N, indexed, old);
+		}
+	}
+}
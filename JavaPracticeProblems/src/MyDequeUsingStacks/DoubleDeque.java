@@ -0,0 +1,70 @@
+package MyDequeUsingStacks;
+
+import java.util.PrimitiveIterator;
+import java.util.function.DoubleConsumer;
+
+/*
+ * A deque of unboxed doubles: 8 bytes per item in a ring buffer (see
+ * PrimitiveDeque and IntDeque).
+ */
+public class DoubleDeque extends PrimitiveDeque {
+	private double[] a;
+
+	Object newArray(int capacity) {
+		return new double[capacity];
+	}
+
+	Object array() {
+		return a;
+	}
+
+	void store(Object array) {
+		a = (double[]) array;
+	}
+
+	public void pushLeft(double item) {
+		int slot = pushLeftSlot(); // before reading a, which a resize replaces
+		a[slot] = item;
+	}
+
+	public void pushRight(double item) {
+		int slot = pushRightSlot();
+		a[slot] = item;
+	}
+
+	public double popLeft() {
+		int slot = popLeftSlot();
+		return a[slot];
+	}
+
+	public double popRight() {
+		int slot = popRightSlot();
+		return a[slot];
+	}
+
+	// the item k from the left
+	public double get(int k) {
+		return a[slot(k)];
+	}
+
+	// call action on every item, from left to right, without boxing
+	public void forEach(DoubleConsumer action) {
+		forEachSlot(i -> action.accept(a[i]));
+	}
+
+	// the items from left to right, without boxing
+	public PrimitiveIterator.OfDouble iterator() {
+		return new Items();
+	}
+
+	private class Items extends Slots implements PrimitiveIterator.OfDouble {
+		public double nextDouble() {
+			return a[nextSlot()];
+		}
+	}
+
+	// the items from left to right
+	public double[] toArray() {
+		return (double[]) copyItems();
+	}
+}
@@ -0,0 +1,73 @@
+package MyDequeUsingStacks;
+
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/*
+ * A deque of unboxed ints: 4 bytes per item in a ring buffer (see
+ * PrimitiveDeque), against about 20 for an Integer and its reference in
+ * MyDequeUsingStacks<Integer>. Nothing allocates except the buffer when it
+ * resizes; iterate with forEach or the primitive iterator to avoid boxing.
+ * PrimitiveDeque.main tests this class, LongDeque and DoubleDeque.
+ */
+public class IntDeque extends PrimitiveDeque {
+	private int[] a;
+
+	Object newArray(int capacity) {
+		return new int[capacity];
+	}
+
+	Object array() {
+		return a;
+	}
+
+	void store(Object array) {
+		a = (int[]) array;
+	}
+
+	public void pushLeft(int item) {
+		int slot = pushLeftSlot(); // before reading a, which a resize replaces
+		a[slot] = item;
+	}
+
+	public void pushRight(int item) {
+		int slot = pushRightSlot();
+		a[slot] = item;
+	}
+
+	public int popLeft() {
+		int slot = popLeftSlot();
+		return a[slot];
+	}
+
+	public int popRight() {
+		int slot = popRightSlot();
+		return a[slot];
+	}
+
+	// the item k from the left
+	public int get(int k) {
+		return a[slot(k)];
+	}
+
+	// call action on every item, from left to right, without boxing
+	public void forEach(IntConsumer action) {
+		forEachSlot(i -> action.accept(a[i]));
+	}
+
+	// the items from left to right, without boxing
+	public PrimitiveIterator.OfInt iterator() {
+		return new Items();
+	}
+
+	private class Items extends Slots implements PrimitiveIterator.OfInt {
+		public int nextInt() {
+			return a[nextSlot()];
+		}
+	}
+
+	// the items from left to right
+	public int[] toArray() {
+		return (int[]) copyItems();
+	}
+}
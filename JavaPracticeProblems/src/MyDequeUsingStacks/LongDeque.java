@@ -0,0 +1,70 @@
+package MyDequeUsingStacks;
+
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/*
+ * A deque of unboxed longs: 8 bytes per item in a ring buffer (see
+ * PrimitiveDeque and IntDeque).
+ */
+public class LongDeque extends PrimitiveDeque {
+	private long[] a;
+
+	Object newArray(int capacity) {
+		return new long[capacity];
+	}
+
+	Object array() {
+		return a;
+	}
+
+	void store(Object array) {
+		a = (long[]) array;
+	}
+
+	public void pushLeft(long item) {
+		int slot = pushLeftSlot(); // before reading a, which a resize replaces
+		a[slot] = item;
+	}
+
+	public void pushRight(long item) {
+		int slot = pushRightSlot();
+		a[slot] = item;
+	}
+
+	public long popLeft() {
+		int slot = popLeftSlot();
+		return a[slot];
+	}
+
+	public long popRight() {
+		int slot = popRightSlot();
+		return a[slot];
+	}
+
+	// the item k from the left
+	public long get(int k) {
+		return a[slot(k)];
+	}
+
+	// call action on every item, from left to right, without boxing
+	public void forEach(LongConsumer action) {
+		forEachSlot(i -> action.accept(a[i]));
+	}
+
+	// the items from left to right, without boxing
+	public PrimitiveIterator.OfLong iterator() {
+		return new Items();
+	}
+
+	private class Items extends Slots implements PrimitiveIterator.OfLong {
+		public long nextLong() {
+			return a[nextSlot()];
+		}
+	}
+
+	// the items from left to right
+	public long[] toArray() {
+		return (long[]) copyItems();
+	}
+}
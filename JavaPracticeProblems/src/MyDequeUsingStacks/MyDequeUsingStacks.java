@@ -1,9 +1,9 @@
+package MyDequeUsingStacks;
 
 // Exercise 1.4.31
 
 import stdlib.*;
 import java.util.NoSuchElementException;
-import algs13.ResizingArrayStack;
 
 /*
 Here is the kind of output I get before fixing the move method.
@@ -0,0 +1,338 @@
+package MyDequeUsingStacks;
+
+import stdlib.*;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/*
+ * A deque made of two array stacks, like MyDequeUsingStacks, that rebalances
+ * without a temporary stack.
+ *
+ * Each stack keeps its bottom at index 0, at the end that faces the other
+ * stack: left[0] is the rightmost item of the left stack and right[0] the
+ * leftmost item of the right one. So when one side runs empty, the items
+ * it needs are the bottom half of the other stack, at the start of that
+ * stack's array. split() copies them, reversed, straight into the empty
+ * stack's array, then slides the rest of the array down with one
+ * System.arraycopy: n moves in total for n items, and no allocation
+ * unless the empty side's array is too small.
+ *
+ * Amortized cost: let the potential be |size(left) - size(right)|. A push
+ * or pop moves 1 item and raises the potential by at most 1. A split of n
+ * items moves n items and drops the potential from n to n % 2 <= 1. So
+ * after any sequence of m operations at most 2m items have been moved by
+ * pushes, pops and splits. Resizing the arrays (double when full, halve
+ * when a quarter full) adds at most 2 more copies per operation.
+ * amortizationTest() checks the resulting bound of 4m copies.
+ */
+public class MySplitStackDeque<T> {
+	private Object[] left = new Object[2];  // left[nl-1] is the leftmost item
+	private int nl;
+	private Object[] right = new Object[2]; // right[nr-1] is the rightmost item
+	private int nr;
+	long moves; // item copies so far, for amortizationTest
+
+	public boolean isEmpty() {
+		return nl + nr == 0;
+	}
+
+	public int size() {
+		return nl + nr;
+	}
+
+	// copy the first n items of a into a new array of the given capacity
+	private Object[] resize(Object[] a, int n, int capacity) {
+		Object[] b = new Object[capacity];
+		System.arraycopy(a, 0, b, 0, n);
+		moves += n;
+		return b;
+	}
+
+	// an array of at least the given capacity that replaces the empty array a
+	private static Object[] atLeast(Object[] a, int capacity) {
+		if (a.length >= capacity)
+			return a;
+		int length = a.length;
+		while (length < capacity)
+			length *= 2;
+		return new Object[length];
+	}
+
+	// Move the bottom h items of the stack in from[0..n-1] to the empty stack
+	// "to", reversed so that from[0] ends up on top, and slide the other n-h
+	// items down to from[0]. Returns the array now holding "to".
+	private Object[] split(Object[] from, int n, Object[] to, int h) {
+		to = atLeast(to, h);
+		for (int i = 0; i < h; i++)
+			to[h - 1 - i] = from[i];
+		System.arraycopy(from, h, from, 0, n - h);
+		for (int i = n - h; i < n; i++)
+			from[i] = null; // avoid loitering
+		moves += n;
+		return to;
+	}
+
+	public void pushLeft(T item) {
+		if (nl == left.length)
+			left = resize(left, nl, 2 * left.length);
+		left[nl++] = item;
+		moves++;
+	}
+
+	public void pushRight(T item) {
+		if (nr == right.length)
+			right = resize(right, nr, 2 * right.length);
+		right[nr++] = item;
+		moves++;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T popLeft() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		if (nl == 0) {
+			int h = (nr + 1) / 2;
+			left = split(right, nr, left, h);
+			nl = h;
+			nr -= h;
+			if (nr > 0 && nr <= right.length / 4)
+				right = resize(right, nr, right.length / 2);
+		}
+		T item = (T) left[--nl];
+		left[nl] = null;
+		moves++;
+		if (nl > 0 && nl == left.length / 4)
+			left = resize(left, nl, left.length / 2);
+		return item;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T popRight() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		if (nr == 0) {
+			int h = (nl + 1) / 2;
+			right = split(left, nl, right, h);
+			nr = h;
+			nl -= h;
+			if (nl > 0 && nl <= left.length / 4)
+				left = resize(left, nl, left.length / 2);
+		}
+		T item = (T) right[--nr];
+		right[nr] = null;
+		moves++;
+		if (nr > 0 && nr == right.length / 4)
+			right = resize(right, nr, right.length / 2);
+		return item;
+	}
+
+	public String toString() {
+		if (isEmpty())
+			return "[ ]";
+		StringBuilder sb = new StringBuilder("[ ");
+		for (int i = nl - 1; i >= 0; i--) {
+			sb.append(left[i]);
+			sb.append(" ");
+		}
+		for (int i = 0; i < nr; i++) {
+			sb.append(right[i]);
+			sb.append(" ");
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+
+	private void check(String expected) {
+		if (expected != null) {
+			if (!expected.equals(this.toString()))
+				throw new Error("Expected \"" + expected + "\", got \"" + this + "\"");
+		}
+		StdOut.println(this);
+	}
+
+	private void check(T iExpected, T iActual, String expected) {
+		if (!iExpected.equals(iActual))
+			throw new Error("Expected \"" + iExpected + "\", got \"" + iActual + "\"");
+		check(expected);
+	}
+
+	private static void correctnessTest() {
+		MySplitStackDeque<Integer> d1 = new MySplitStackDeque<>();
+		Integer k;
+		d1.pushLeft(11);
+		d1.check("[ 11 ]");
+		d1.pushLeft(12);
+		d1.check("[ 12 11 ]");
+		d1.pushRight(13);
+		d1.check("[ 12 11 13 ]");
+		k = d1.popRight();
+		d1.check(13, k, "[ 12 11 ]");
+		k = d1.popRight();
+		d1.check(11, k, "[ 12 ]");
+		k = d1.popLeft();
+		d1.check(12, k, "[ ]");
+		try {
+			d1.popLeft();
+			throw new Error("Expected exception");
+		} catch (NoSuchElementException e) {
+		}
+		try {
+			d1.popRight();
+			throw new Error("Expected exception");
+		} catch (NoSuchElementException e) {
+		}
+
+		// random operations must agree with java.util.ArrayDeque
+		Random random = new Random(42);
+		ArrayDeque<Integer> expected = new ArrayDeque<>();
+		for (int op = 0; op < 200000; op++) {
+			int choice = random.nextInt(4);
+			if (choice == 0) {
+				d1.pushLeft(op);
+				expected.addFirst(op);
+			} else if (choice == 1) {
+				d1.pushRight(op);
+				expected.addLast(op);
+			} else if (expected.isEmpty()) {
+				continue;
+			} else if (choice == 2) {
+				if (!d1.popLeft().equals(expected.removeFirst()))
+					throw new Error("popLeft differs at op " + op);
+			} else {
+				if (!d1.popRight().equals(expected.removeLast()))
+					throw new Error("popRight differs at op " + op);
+			}
+			if (d1.size() != expected.size())
+				throw new Error("size differs at op " + op);
+		}
+		StdOut.println("agrees with java.util.ArrayDeque on 200000 random operations");
+	}
+
+	// Run op sequences that are random, and that are built to force a split on
+	// almost every pop, and check after every operation that the copies so
+	// far are at most 4 per operation, as the potential argument above shows.
+	private static void amortizationTest() {
+		Random random = new Random(42);
+		double worst = 0;
+		for (int pattern = 0; pattern < 4; pattern++) {
+			MySplitStackDeque<Integer> d = new MySplitStackDeque<>();
+			long ops = 0;
+			for (int step = 0; step < 200000; step++) {
+				switch (pattern) {
+				case 0: // random
+					int choice = random.nextInt(4);
+					if (choice == 0) d.pushLeft(step);
+					else if (choice == 1) d.pushRight(step);
+					else if (d.isEmpty()) continue;
+					else if (choice == 2) d.popLeft();
+					else d.popRight();
+					ops++;
+					break;
+				case 1: // one big stack, then alternate ends
+					if (step < 100000) d.pushLeft(step);
+					else if (step % 2 == 0) d.popLeft();
+					else d.popRight();
+					ops++;
+					break;
+				case 2: // a small deque, always popping the empty side
+					d.pushLeft(step);
+					d.pushLeft(step);
+					d.popRight();
+					d.popRight();
+					ops += 4;
+					break;
+				default: // grow on one side, drain from the other, repeatedly
+					int n = 1 + random.nextInt(64);
+					for (int i = 0; i < n; i++) d.pushRight(i);
+					for (int i = 0; i < n; i++) d.popLeft();
+					ops += 2 * n;
+					break;
+				}
+				double ratio = d.moves / (double) ops;
+				if (ratio > 4)
+					throw new Error("pattern " + pattern + ": " + d.moves + " copies after " + ops + " operations");
+				worst = Math.max(worst, ratio);
+			}
+		}
+		StdOut.format("amortization test passed: at most %.2f copies per operation\n", worst);
+	}
+
+	// the same alternating-pop trial as MyDequeUsingStacks.timeTrial
+	private static double timeTrial(int N) {
+		int NUM_TRIALS = 10;
+		MySplitStackDeque<Integer> d1 = new MySplitStackDeque<>();
+		Stopwatch sw = new Stopwatch();
+		for (int trial = 0; trial < NUM_TRIALS; trial++) {
+			for (int i = 0; i < 2 * N; i++) {
+				d1.pushLeft(i);
+			}
+			for (int i = 0; i < N; i++) {
+				d1.popLeft();
+				d1.popRight();
+			}
+		}
+		return sw.elapsedTime();
+	}
+
+	private static double timeTrialStacks(int N) {
+		int NUM_TRIALS = 10;
+		MyDequeUsingStacks<Integer> d1 = new MyDequeUsingStacks<>();
+		Stopwatch sw = new Stopwatch();
+		for (int trial = 0; trial < NUM_TRIALS; trial++) {
+			for (int i = 0; i < 2 * N; i++) {
+				d1.pushLeft(i);
+			}
+			for (int i = 0; i < N; i++) {
+				d1.popLeft();
+				d1.popRight();
+			}
+		}
+		return sw.elapsedTime();
+	}
+
+	// adversarial small deque: push two on the left, pop both from the right,
+	// N times, so every other pop is a rebalance.  The item is a cached
+	// Integer, so boxing does not hide the cost of the rebalances.
+	private static double smallTrial(int N, boolean split) {
+		Integer i = 0;
+		Stopwatch sw = new Stopwatch();
+		if (split) {
+			MySplitStackDeque<Integer> d = new MySplitStackDeque<>();
+			for (int n = 0; n < N; n++) {
+				d.pushLeft(i); d.pushLeft(i);
+				d.popRight(); d.popRight();
+			}
+		} else {
+			MyDequeUsingStacks<Integer> d = new MyDequeUsingStacks<>();
+			for (int n = 0; n < N; n++) {
+				d.pushLeft(i); d.pushLeft(i);
+				d.popRight(); d.popRight();
+			}
+		}
+		return sw.elapsedTime();
+	}
+
+	private static final int MIN = 2000;
+	private static final int MAX = 4096000;
+
+	public static void main(String args[]) {
+		correctnessTest();
+		amortizationTest();
+
+		// warm up both, then time them side by side
+		timeTrial(MIN);
+		timeTrialStacks(MIN);
+		smallTrial(MIN, true);
+		smallTrial(MIN, false);
+		StdOut.printf("%8s %9s %5s %9s %5s %10s %10s\n", "N", "split", "ratio", "stacks", "ratio", "small", "small(old)");
+		double prevSplit = timeTrial(MIN), prevStacks = timeTrialStacks(MIN);
+		for (int N = MIN * 2; N <= MAX; N += N) {
+			double split = timeTrial(N), stacks = timeTrialStacks(N);
+			StdOut.printf("%8d %9.3f %5.1f %9.3f %5.1f %10.3f %10.3f\n", N, split, split / prevSplit, stacks, stacks / prevStacks,
+					smallTrial(N, true), smallTrial(N, false));
+			prevSplit = split;
+			prevStacks = stacks;
+		}
+	}
+}
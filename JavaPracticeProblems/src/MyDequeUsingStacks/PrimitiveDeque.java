@@ -0,0 +1,296 @@
+package MyDequeUsingStacks;
+
+import stdlib.*;
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/*
+ * The shared code of IntDeque, LongDeque and DoubleDeque: a resizing ring
+ * buffer over a primitive array, so items are stored unboxed.
+ *
+ * This class does all the work that does not touch an item: head, size,
+ * growing and shrinking, walking the slots, copying the items out. It
+ * handles the array only as an Object, through System.arraycopy, which
+ * copies any primitive array. A subclass keeps the same array in a field of
+ * its own type and adds only the typed accesses: each of its operations is
+ * one call here to get a slot plus one array read or write. The buffer
+ * length is a power of two; it doubles when full and halves when a pop
+ * leaves it a quarter full.
+ */
+public abstract class PrimitiveDeque {
+	private static final int MIN_CAPACITY = 8;
+
+	private int head;      // slot of the leftmost item
+	private int N;         // number of items
+	private int mask = -1; // buffer length - 1; no buffer until the first push
+
+	// a new primitive array of the given length
+	abstract Object newArray(int capacity);
+
+	// the subclass's array
+	abstract Object array();
+
+	// make array the subclass's array
+	abstract void store(Object array);
+
+	public final boolean isEmpty() {
+		return N == 0;
+	}
+
+	public final int size() {
+		return N;
+	}
+
+	// remove every item (keeping the buffer)
+	public final void clear() {
+		head = 0;
+		N = 0;
+	}
+
+	// slot of the item k from the left
+	final int slot(int k) {
+		if (k < 0 || k >= N)
+			throw new IndexOutOfBoundsException("index " + k + ", size " + N);
+		return (head + k) & mask;
+	}
+
+	// copy the items, in order, to the start of a new buffer of the given length
+	private void resize(int capacity) {
+		Object b = newArray(capacity);
+		copyTo(b);
+		store(b);
+		head = 0;
+		mask = capacity - 1;
+	}
+
+	// copy the items, in order, to the start of b
+	private void copyTo(Object b) {
+		if (N == 0) // no buffer before the first push
+			return;
+		int left = Math.min(N, mask + 1 - head);
+		System.arraycopy(array(), head, b, 0, left);
+		System.arraycopy(array(), 0, b, left, N - left);
+	}
+
+	// a new array of the subclass's type holding the items from left to right
+	final Object copyItems() {
+		Object items = newArray(N);
+		copyTo(items);
+		return items;
+	}
+
+	// slot for a new leftmost item
+	final int pushLeftSlot() {
+		if (N == mask + 1)
+			resize(Math.max(MIN_CAPACITY, 2 * (mask + 1)));
+		head = (head - 1) & mask;
+		N++;
+		return head;
+	}
+
+	// slot for a new rightmost item
+	final int pushRightSlot() {
+		if (N == mask + 1)
+			resize(Math.max(MIN_CAPACITY, 2 * (mask + 1)));
+		N++;
+		return (head + N - 1) & mask;
+	}
+
+	// Remove the leftmost item and return its slot, which keeps the item
+	// until the next push. If the pop leaves the buffer a quarter full, it is
+	// halved first, while the item is still counted.
+	final int popLeftSlot() {
+		shrinkForPop();
+		int slot = head;
+		head = (head + 1) & mask;
+		N--;
+		return slot;
+	}
+
+	// remove the rightmost item and return its slot, as for popLeftSlot()
+	final int popRightSlot() {
+		shrinkForPop();
+		N--;
+		return (head + N) & mask;
+	}
+
+	private void shrinkForPop() {
+		if (N == 0)
+			throw new NoSuchElementException();
+		if (mask + 1 > MIN_CAPACITY && N - 1 <= (mask + 1) / 4)
+			resize((mask + 1) / 2);
+	}
+
+	// Call action on the slot of every item, from left to right. The items
+	// occupy at most two runs of the buffer, [head, end) and [0, rest), so
+	// this is two plain loops.
+	final void forEachSlot(IntConsumer action) {
+		int left = Math.min(N, mask + 1 - head);
+		for (int i = head, end = head + left; i < end; i++)
+			action.accept(i);
+		for (int i = 0, end = N - left; i < end; i++)
+			action.accept(i);
+	}
+
+	// The slots of the items from left to right. A subclass's primitive
+	// iterator extends this and reads its array at nextSlot().
+	abstract class Slots {
+		private int k = 0;
+
+		public final boolean hasNext() {
+			return k < N;
+		}
+
+		final int nextSlot() {
+			if (!hasNext()) throw new NoSuchElementException();
+			return slot(k++);
+		}
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[ ");
+		for (int k = 0; k < N; k++) {
+			sb.append(Array.get(array(), slot(k)));
+			sb.append(" ");
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+
+	// one of the subclasses, seen through long values so a single test covers all three
+	private interface Probe {
+		PrimitiveDeque deque();
+		void pushLeft(long item);
+		void pushRight(long item);
+		long popLeft();
+		long popRight();
+		long get(int k);
+		long[] toArray();
+		long[] forEach();
+		long[] iterate();
+	}
+
+	private static Probe intDeque() {
+		IntDeque d = new IntDeque();
+		return new Probe() {
+			public PrimitiveDeque deque() { return d; }
+			public void pushLeft(long item) { d.pushLeft((int) item); }
+			public void pushRight(long item) { d.pushRight((int) item); }
+			public long popLeft() { return d.popLeft(); }
+			public long popRight() { return d.popRight(); }
+			public long get(int k) { return d.get(k); }
+			public long[] toArray() { return Arrays.stream(d.toArray()).asLongStream().toArray(); }
+			public long[] forEach() { ArrayDeque<Long> q = new ArrayDeque<>(); d.forEach(x -> q.add((long) x)); return unbox(q); }
+			public long[] iterate() {
+				ArrayDeque<Long> q = new ArrayDeque<>();
+				for (PrimitiveIterator.OfInt it = d.iterator(); it.hasNext(); ) q.add((long) it.nextInt());
+				return unbox(q);
+			}
+		};
+	}
+
+	private static Probe longDeque() {
+		LongDeque d = new LongDeque();
+		return new Probe() {
+			public PrimitiveDeque deque() { return d; }
+			public void pushLeft(long item) { d.pushLeft(item); }
+			public void pushRight(long item) { d.pushRight(item); }
+			public long popLeft() { return d.popLeft(); }
+			public long popRight() { return d.popRight(); }
+			public long get(int k) { return d.get(k); }
+			public long[] toArray() { return d.toArray(); }
+			public long[] forEach() { ArrayDeque<Long> q = new ArrayDeque<>(); d.forEach(x -> q.add(x)); return unbox(q); }
+			public long[] iterate() {
+				ArrayDeque<Long> q = new ArrayDeque<>();
+				for (PrimitiveIterator.OfLong it = d.iterator(); it.hasNext(); ) q.add(it.nextLong());
+				return unbox(q);
+			}
+		};
+	}
+
+	private static Probe doubleDeque() {
+		DoubleDeque d = new DoubleDeque();
+		return new Probe() {
+			public PrimitiveDeque deque() { return d; }
+			public void pushLeft(long item) { d.pushLeft(item); }
+			public void pushRight(long item) { d.pushRight(item); }
+			public long popLeft() { return (long) d.popLeft(); }
+			public long popRight() { return (long) d.popRight(); }
+			public long get(int k) { return (long) d.get(k); }
+			public long[] toArray() { return Arrays.stream(d.toArray()).mapToLong(x -> (long) x).toArray(); }
+			public long[] forEach() { ArrayDeque<Long> q = new ArrayDeque<>(); d.forEach(x -> q.add((long) x)); return unbox(q); }
+			public long[] iterate() {
+				ArrayDeque<Long> q = new ArrayDeque<>();
+				for (PrimitiveIterator.OfDouble it = d.iterator(); it.hasNext(); ) q.add((long) it.nextDouble());
+				return unbox(q);
+			}
+		};
+	}
+
+	private static long[] unbox(ArrayDeque<Long> q) {
+		return q.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	// random pushes and pops on both ends, checked against java.util.ArrayDeque
+	private static void check(String name, Probe d) {
+		Random random = new Random(42);
+		if (d.toArray().length != 0 || d.iterate().length != 0 || d.forEach().length != 0
+				|| !d.deque().toString().equals("[ ]"))
+			throw new Error(name + ": a new deque is not empty");
+		ArrayDeque<Long> expected = new ArrayDeque<>();
+		for (int op = 0; op < 200000; op++) {
+			int choice = random.nextInt(100);
+			boolean grow = op < 100000 ? choice < 55 : choice < 45;
+			if (grow && choice % 2 == 0) {
+				d.pushLeft(op);
+				expected.addFirst((long) op);
+			} else if (grow) {
+				d.pushRight(op);
+				expected.addLast((long) op);
+			} else if (expected.isEmpty()) {
+				continue;
+			} else if (choice < 75) {
+				if (d.popLeft() != expected.removeFirst())
+					throw new Error(name + ": popLeft differs at op " + op);
+			} else {
+				if (d.popRight() != expected.removeLast())
+					throw new Error(name + ": popRight differs at op " + op);
+			}
+			if (d.deque().size() != expected.size())
+				throw new Error(name + ": size differs at op " + op);
+			if (expected.isEmpty() && d.toArray().length != 0)
+				throw new Error(name + ": toArray of an emptied deque at op " + op);
+			if (op % 1000 == 0) {
+				long[] items = unbox(expected);
+				if (!Arrays.equals(items, d.toArray()))
+					throw new Error(name + ": toArray differs at op " + op);
+				if (!Arrays.equals(items, d.forEach()))
+					throw new Error(name + ": forEach differs at op " + op);
+				if (!Arrays.equals(items, d.iterate()))
+					throw new Error(name + ": iterator differs at op " + op);
+				if (items.length > 0 && d.get(items.length / 2) != items[items.length / 2])
+					throw new Error(name + ": get differs at op " + op);
+			}
+		}
+		while (!expected.isEmpty())
+			if (d.popLeft() != expected.removeFirst())
+				throw new Error(name + ": popLeft differs while draining");
+		try {
+			d.popRight();
+			throw new Error(name + ": expected exception");
+		} catch (NoSuchElementException e) {
+		}
+		StdOut.println(name + " agrees with java.util.ArrayDeque on 200000 random operations");
+	}
+
+	public static void main(String[] args) {
+		check("IntDeque", intDeque());
+		check("LongDeque", longDeque());
+		check("DoubleDeque", doubleDeque());
+	}
+}
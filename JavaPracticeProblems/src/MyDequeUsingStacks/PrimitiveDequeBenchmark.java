@@ -0,0 +1,124 @@
+package MyDequeUsingStacks;
+
+import stdlib.*;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.PrimitiveIterator;
+
+/*
+ * Bytes allocated and time per item for IntDeque and LongDeque against the
+ * boxed deques, in three phases: push N items on the right, iterate over
+ * them, and pop them all from the left. The items are N..2N-1, outside the
+ * Integer cache, so every boxed push allocates.
+ *
+ * Allocation is read from the JVM's per-thread counter
+ * (com.sun.management.ThreadMXBean.getThreadAllocatedBytes), which is what
+ * JMH's gc profiler reports as gc.alloc.rate.norm. Each phase is repeated
+ * until warm and the last round is printed.
+ */
+public class PrimitiveDequeBenchmark {
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private static final long ME = Thread.currentThread().getId();
+
+	private static long allocated() {
+		return THREADS.getThreadAllocatedBytes(ME);
+	}
+
+	// the three phases of one deque; iterate returns a checksum so it is not optimized away
+	private interface Phases {
+		void push(int N);
+		long iterate();
+		void pop(int N);
+	}
+
+	private static Phases stacks() {
+		MyDequeUsingStacks<Integer> d = new MyDequeUsingStacks<>();
+		return new Phases() {
+			public void push(int N) { for (int i = N; i < 2 * N; i++) d.pushRight(i); }
+			public long iterate() { return -1; } // MyDequeUsingStacks has no iterator
+			public void pop(int N) { for (int i = 0; i < N; i++) d.popLeft(); }
+		};
+	}
+
+	private static Phases arrayDeque() {
+		ArrayDeque<Integer> d = new ArrayDeque<>();
+		return new Phases() {
+			public void push(int N) { for (int i = N; i < 2 * N; i++) d.addLast(i); }
+			public long iterate() { long sum = 0; for (int item : d) sum += item; return sum; }
+			public void pop(int N) { for (int i = 0; i < N; i++) d.removeFirst(); }
+		};
+	}
+
+	private static Phases intDeque() {
+		IntDeque d = new IntDeque();
+		return new Phases() {
+			public void push(int N) { for (int i = N; i < 2 * N; i++) d.pushRight(i); }
+			public long iterate() {
+				long sum = 0;
+				for (PrimitiveIterator.OfInt it = d.iterator(); it.hasNext(); )
+					sum += it.nextInt();
+				return sum;
+			}
+			public void pop(int N) { for (int i = 0; i < N; i++) d.popLeft(); }
+		};
+	}
+
+	private static Phases intDequeForEach() {
+		IntDeque d = new IntDeque();
+		long[] sum = new long[1];
+		return new Phases() {
+			public void push(int N) { for (int i = N; i < 2 * N; i++) d.pushRight(i); }
+			public long iterate() { sum[0] = 0; d.forEach(item -> sum[0] += item); return sum[0]; }
+			public void pop(int N) { for (int i = 0; i < N; i++) d.popLeft(); }
+		};
+	}
+
+	private static Phases longDeque() {
+		LongDeque d = new LongDeque();
+		long[] sum = new long[1];
+		return new Phases() {
+			public void push(int N) { for (int i = N; i < 2 * N; i++) d.pushRight(i); }
+			public long iterate() { sum[0] = 0; d.forEach(item -> sum[0] += item); return sum[0]; }
+			public void pop(int N) { for (int i = 0; i < N; i++) d.popLeft(); }
+		};
+	}
+
+	private interface Factory {
+		Phases create();
+	}
+
+	// bytes and nanoseconds per item of each phase, over a fresh deque
+	private static double[] measure(Factory factory, int N) {
+		Phases p = factory.create();
+		long checksum = 0;
+		long b0 = allocated(), t0 = System.nanoTime();
+		p.push(N);
+		long b1 = allocated(), t1 = System.nanoTime();
+		checksum += p.iterate();
+		long b2 = allocated(), t2 = System.nanoTime();
+		p.pop(N);
+		long b3 = allocated(), t3 = System.nanoTime();
+		if (checksum != -1 && checksum != (3L * N - 1) * N / 2)
+			throw new Error("wrong checksum " + checksum);
+		return new double[] {
+			(b1 - b0) / (double) N, (b2 - b1) / (double) N, (b3 - b2) / (double) N,
+			(t1 - t0) / (double) N, (t2 - t1) / (double) N, (t3 - t2) / (double) N,
+		};
+	}
+
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+		String[] names = { "MyDequeUsingStacks<Integer>", "ArrayDeque<Integer>", "IntDeque (iterator)", "IntDeque (forEach)", "LongDeque (forEach)" };
+		Factory[] factories = { PrimitiveDequeBenchmark::stacks, PrimitiveDequeBenchmark::arrayDeque,
+				PrimitiveDequeBenchmark::intDeque, PrimitiveDequeBenchmark::intDequeForEach, PrimitiveDequeBenchmark::longDeque };
+		StdOut.printf("N = %d; bytes allocated per item, then ns per item\n", N);
+		StdOut.printf("%-28s %8s %8s %8s %8s %8s %8s\n", "", "push", "iterate", "pop", "push", "iterate", "pop");
+		for (int k = 0; k < names.length; k++) {
+			double[] r = null;
+			for (int round = 0; round < 10; round++)
+				r = measure(factories[k], N);
+			StdOut.printf("%-28s %8.2f %8.2f %8.2f %8.1f %8.1f %8.1f\n", names[k], r[0], r[1], r[2], r[3], r[4], r[5]);
+		}
+	}
+}
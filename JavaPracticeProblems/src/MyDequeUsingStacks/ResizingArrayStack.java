@@ -0,0 +1,67 @@
+package MyDequeUsingStacks;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/* **************************************************************************
+ *  Stack implementation with a resizing array, as in algs13, which is not
+ *  part of this tree.  The array doubles when full and halves when a
+ *  quarter full.  Iteration is in LIFO order.
+ *
+ ****************************************************************************/
+
+public class ResizingArrayStack<T> implements Iterable<T> {
+	private T[] a;  // array of items
+	private int N;  // number of elements on stack
+
+	@SuppressWarnings("unchecked")
+	public ResizingArrayStack() {
+		a = (T[]) new Object[2];
+	}
+
+	public boolean isEmpty() {
+		return N == 0;
+	}
+
+	public int size() {
+		return N;
+	}
+
+	// move the stack to a new array of the given capacity
+	private void resize(int capacity) {
+		@SuppressWarnings("unchecked")
+		T[] temp = (T[]) new Object[capacity];
+		System.arraycopy(a, 0, temp, 0, N);
+		a = temp;
+	}
+
+	public void push(T item) {
+		if (N == a.length) resize(2 * a.length);
+		a[N++] = item;
+	}
+
+	public T pop() {
+		if (isEmpty()) throw new NoSuchElementException("Stack underflow");
+		T item = a[N - 1];
+		a[N - 1] = null; // avoid loitering
+		N--;
+		if (N > 0 && N == a.length / 4) resize(a.length / 2);
+		return item;
+	}
+
+	public T peek() {
+		if (isEmpty()) throw new NoSuchElementException("Stack underflow");
+		return a[N - 1];
+	}
+
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private int i = N;
+			public boolean hasNext() { return i > 0; }
+			public T next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				return a[--i];
+			}
+		};
+	}
+}
@@ -0,0 +1,492 @@
+package MyLinkedList;
+
+import stdlib.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * MyLinkedList with its nodes in two parallel arrays instead of Node objects:
+ * node s holds items[s] and next[s], and a link is an index, -1 for null.
+ * That is 12 bytes per node, against 24 for a Node plus its header, and
+ * add allocates nothing unless the arrays have to double.
+ *
+ * Deleted nodes go on a free list threaded through next[], and add reuses
+ * them first. A free slot's item is set to NaN. When deletions leave fewer
+ * than a quarter of the used slots holding items, the list is compacted:
+ * its nodes are copied, in list order, to the start of arrays of twice its
+ * size. So used never exceeds 4N, and the copying, O(N) each time, is paid
+ * for by the 3N or more deletions since the last one.
+ *
+ * The list order does not matter to max, so max scans items[] straight
+ * through, slot by slot, instead of following next[]; thanks to the
+ * compaction, that is at most 4N slots. NaN never compares
+ * greater, so the scan skips free slots just as the list walk skips NaN
+ * items. maxRecursive does the same scan, splitting the slots in half
+ * recursively. That keeps it recursive with O(log N) depth; the list walk
+ * in MyLinkedList needs one stack frame per node. Two cases depend on list
+ * order and are checked separately:
+ *   - max() returns NaN when the first item is NaN;
+ *   - ties between 0.0 and -0.0 go to the first in list order.
+ *
+ * remove(item) removes every occurrence, as the tests in MyLinkedList
+ * expect. (MyLinkedList.remove stops after the first one and never looks
+ * at the first node of a longer list.)
+ */
+public class MyArrayLinkedList {
+	private static final int NIL = -1;
+	private static final int MIN_CAPACITY = 8;
+
+	private double[] items;
+	private int[] next;
+	private int used;       // slots 0..used-1 have been handed out
+	private int free = NIL; // first free slot below used
+	int N;
+	int first = NIL;
+
+	public MyArrayLinkedList() {
+		this(MIN_CAPACITY);
+	}
+
+	// an empty list with room for capacity items before the arrays grow
+	public MyArrayLinkedList(int capacity) {
+		capacity = Math.max(capacity, MIN_CAPACITY);
+		items = new double[capacity];
+		next = new int[capacity];
+		checkInvariants();
+	}
+
+	private void myassert(String s, boolean b) {
+		if (!b)
+			throw new Error("Assertion failed: " + s);
+	}
+
+	private void checkInvariants() {
+		myassert("Empty <==> first==NIL", (N == 0) == (first == NIL));
+		int x = first;
+		for (int i = 0; i < N; i++) {
+			if (x == NIL) {
+				throw new Error("List too short!");
+			}
+			x = next[x];
+		}
+		myassert("EndOfList == NIL", x == NIL);
+		int freeSlots = 0;
+		for (int s = free; s != NIL; s = next[s]) {
+			myassert("free slot holds NaN", Double.isNaN(items[s]));
+			freeSlots++;
+		}
+		myassert("every slot is in the list or free", N + freeSlots == used);
+		myassert("at least a quarter of the used slots hold items", N >= used / 4);
+	}
+
+	public boolean isEmpty() {
+		return first == NIL;
+	}
+
+	public int size() {
+		return N;
+	}
+
+	// a slot for a new node: a free one if any, else the next unused one
+	private int allocate() {
+		if (free != NIL) {
+			int s = free;
+			free = next[s];
+			return s;
+		}
+		if (used == items.length) {
+			items = Arrays.copyOf(items, 2 * used);
+			next = Arrays.copyOf(next, 2 * used);
+		}
+		return used++;
+	}
+
+	private void release(int s) {
+		items[s] = Double.NaN;
+		next[s] = free;
+		free = s;
+	}
+
+	// after deletions: copy the nodes to the start of new arrays, in list
+	// order, if fewer than a quarter of the used slots hold items
+	private void compactIfSparse() {
+		if (N >= used / 4)
+			return;
+		int capacity = Math.max(MIN_CAPACITY, 2 * N);
+		double[] items = new double[capacity];
+		int[] next = new int[capacity];
+		int s = 0;
+		for (int x = first; x != NIL; x = this.next[x], s++) {
+			items[s] = this.items[x];
+			next[s] = s + 1;
+		}
+		if (N > 0)
+			next[N - 1] = NIL;
+		this.items = items;
+		this.next = next;
+		first = N > 0 ? 0 : NIL;
+		free = NIL;
+		used = N;
+	}
+
+	public void add(double item) {
+		int s = allocate();
+		items[s] = item;
+		next[s] = first;
+		first = s;
+		N++;
+	}
+
+	// return Double.NEGATIVE_INFINITY if the linked list is empty
+	public double max() {
+		if (first == NIL)
+			return Double.NEGATIVE_INFINITY;
+		if (Double.isNaN(items[first]))
+			return items[first];
+		return firstEqual(scan(0, used));
+	}
+
+	public double maxRecursive() {
+		return firstEqual(maxRecursive(0, used));
+	}
+
+	private double maxRecursive(int lo, int hi) {
+		if (hi - lo <= 1024)
+			return scan(lo, hi);
+		int mid = (lo + hi) >>> 1;
+		return Math.max(maxRecursive(lo, mid), maxRecursive(mid, hi));
+	}
+
+	// the largest item in slots lo..hi-1, ignoring NaN (so free slots too)
+	private double scan(int lo, int hi) {
+		double max = Double.NEGATIVE_INFINITY;
+		for (int s = lo; s < hi; s++)
+			if (items[s] > max)
+				max = items[s];
+		return max;
+	}
+
+	// the first item in list order that is == m: m itself unless m is a
+	// zero, when the list may hold 0.0 and -0.0 and the first one wins
+	private double firstEqual(double m) {
+		if (m != 0)
+			return m;
+		for (int x = first; ; x = next[x])
+			if (items[x] == 0)
+				return items[x];
+	}
+
+	// delete the kth element
+	public void delete(int k) {
+		if (k < 0 || k >= N)
+			throw new IllegalArgumentException();
+		int x = first;
+		if (k == 0) {
+			first = next[x];
+		} else {
+			int prev = x;
+			for (int i = 1; i < k; i++)
+				prev = next[prev];
+			x = next[prev];
+			next[prev] = next[x];
+		}
+		release(x);
+		N--;
+		compactIfSparse();
+	}
+
+	// reverse the list "in place"... without creating any new nodes
+	public void reverse() {
+		int[] next = this.next;
+		int prev = NIL;
+		int curr = first;
+		while (curr != NIL) {
+			int after = next[curr];
+			next[curr] = prev;
+			prev = curr;
+			curr = after;
+		}
+		first = prev;
+	}
+
+	// remove every occurrence of item
+	public void remove(double item) {
+		while (first != NIL && items[first] == item) {
+			int x = first;
+			first = next[x];
+			release(x);
+			N--;
+		}
+		if (first == NIL) {
+			compactIfSparse();
+			return;
+		}
+		int prev = first;
+		for (int x = next[prev]; x != NIL; x = next[prev]) {
+			if (items[x] == item) {
+				next[prev] = next[x];
+				release(x);
+				N--;
+			} else {
+				prev = x;
+			}
+		}
+		compactIfSparse();
+	}
+
+	private static void print(String s, MyArrayLinkedList b) {
+		StdOut.print(s + ": ");
+		for (int x = b.first; x != NIL; x = b.next[x])
+			StdOut.print(b.items[x] + " ");
+		StdOut.println();
+	}
+
+	private static void print(String s, MyArrayLinkedList b, double i) {
+		StdOut.print(s + ": ");
+		for (int x = b.first; x != NIL; x = b.next[x])
+			StdOut.print(b.items[x] + " ");
+		StdOut.println(": " + i);
+	}
+
+	private static void testMax() {
+		MyArrayLinkedList b = new MyArrayLinkedList();
+		print("empty", b, b.max());
+		b.add(-1);
+		print("singleton", b, b.max());
+		b.add(-2);
+		b.add(-3);
+		b.add(-4);
+		print("at end", b, b.max());
+		b.add(5);
+		print("at beginning", b, b.max());
+		b.add(3);
+		b.add(2);
+		b.add(4);
+		print("in the middle", b, b.max());
+		print("recursive", b, b.maxRecursive());
+	}
+
+	private static void testDelete() {
+		MyArrayLinkedList b = new MyArrayLinkedList();
+		b.add(1);
+		print("singleton", b);
+		b.delete(0);
+		print("deleted", b);
+		for (double i = 1; i < 13; i++) {
+			b.add(i);
+		}
+		print("bigger list", b);
+		b.delete(0);
+		print("deleted at beginning", b);
+		b.delete(10);
+		print("deleted at end", b);
+		b.delete(4);
+		print("deleted in middle", b);
+		b.add(20);
+		b.add(21);
+		print("two added in freed slots", b);
+		b.checkInvariants();
+	}
+
+	private static void testReverse() {
+		MyArrayLinkedList b = new MyArrayLinkedList();
+		b.reverse();
+		print("reverse empty", b);
+		b.add(1);
+		b.reverse();
+		print("reverse singleton", b);
+		for (double i = 2; i < 7; i++)
+			b.add(i);
+		print("bigger list", b);
+		b.reverse();
+		print("reversed", b);
+		b.checkInvariants();
+	}
+
+	private static void testRemove() {
+		MyArrayLinkedList b = new MyArrayLinkedList();
+		b.remove(4);
+		print("removed 4 from empty", b);
+		b.add(1);
+		b.remove(4);
+		print("removed 4 from singelton", b);
+		b.remove(1);
+		print("removed 1 from singelton", b);
+		for (double i = 1; i < 5; i++) {
+			b.add(i);
+			b.add(i);
+		}
+		for (double i = 1; i < 5; i++) {
+			b.add(i);
+			b.add(i);
+			b.add(i);
+			b.add(i);
+			b.add(i);
+		}
+		print("longer list", b);
+		b.remove(9);
+		print("removed all 9s", b); // does nothing
+		b.remove(3);
+		print("removed all 3s", b);
+		b.remove(1);
+		print("removed all 1s", b);
+		b.remove(4);
+		print("removed all 4s", b);
+		b.remove(2);
+		print("removed all 2s", b); // should be empty
+		b.checkInvariants();
+		if (!b.isEmpty())
+			throw new Error("Expected an empty list");
+	}
+
+	// add N items, then delete all but a thousand: the arrays must shrink
+	// with the list, so max scans only the slots still in use
+	private static void testMassDelete(int N) {
+		MyArrayLinkedList b = new MyArrayLinkedList();
+		for (int i = 0; i < N; i++)
+			b.add(i);
+		while (b.size() > 1000)
+			b.delete(b.size() % 2 == 0 ? 0 : 1);
+		b.checkInvariants();
+		if (b.used > 4 * b.size() || b.items.length > 8 * b.size())
+			throw new Error("Expected at most " + 4 * b.size() + " slots, got " + b.used + " of " + b.items.length);
+		double expected = Double.NEGATIVE_INFINITY;
+		for (int x = b.first; x != NIL; x = b.next[x])
+			expected = Math.max(expected, b.items[x]);
+		if (b.max() != expected || b.maxRecursive() != expected)
+			throw new Error("max differs after deleting: " + b.max() + ", expected " + expected);
+		b.remove(expected);
+		b.checkInvariants();
+		StdOut.println("deleted " + (N - 1000) + " of " + N + " items: " + b.used + " slots in use");
+	}
+
+	// MyLinkedList.max on the items in list order
+	private static double expectedMax(List<Double> list) {
+		if (list.isEmpty())
+			return Double.NEGATIVE_INFINITY;
+		double max = list.get(0);
+		for (double item : list)
+			if (item > max)
+				max = item;
+		return max;
+	}
+
+	// MyLinkedList.maxRecursive on the items in list order
+	private static double expectedMaxRecursive(List<Double> list) {
+		double result = Double.NEGATIVE_INFINITY;
+		for (double item : list)
+			if (result < item)
+				result = item;
+		return result;
+	}
+
+	private static boolean same(double a, double b) {
+		return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+	}
+
+	// random operations, with NaN and both zeros among the items, must give
+	// the same results as a java.util.ArrayList in list order
+	private static void randomTest() {
+		double[] values = { 0.0, -0.0, Double.NaN, 1.5, -2, 3, Double.POSITIVE_INFINITY };
+		Random random = new Random(42);
+		MyArrayLinkedList b = new MyArrayLinkedList();
+		ArrayList<Double> expected = new ArrayList<>();
+		for (int op = 0; op < 100000; op++) {
+			int choice = random.nextInt(100);
+			double item = random.nextInt(4) == 0 ? values[random.nextInt(values.length)] : random.nextInt(50) - 25;
+			if (op % 5000 < 200 && !expected.isEmpty()) // now and then, mostly zeros
+				item = random.nextBoolean() ? 0.0 : -0.0;
+			if (choice < 50) {
+				b.add(item);
+				expected.add(0, item);
+			} else if (choice < 52) {
+				b.reverse();
+				Collections.reverse(expected);
+			} else if (choice < 55) {
+				b.remove(item);
+				final double removed = item;
+				expected.removeIf(x -> x == removed);
+			} else if (expected.isEmpty()) {
+				continue;
+			} else {
+				int k = random.nextInt(expected.size());
+				b.delete(k);
+				expected.remove(k);
+			}
+			if (!same(b.max(), expectedMax(expected)))
+				throw new Error("max differs at op " + op + ": " + b.max() + ", expected " + expectedMax(expected));
+			if (!same(b.maxRecursive(), expectedMaxRecursive(expected)))
+				throw new Error("maxRecursive differs at op " + op);
+			if (op % 100 == 0) {
+				b.checkInvariants();
+				int i = 0;
+				for (int x = b.first; x != NIL; x = b.next[x])
+					if (!same(b.items[x], expected.get(i++)))
+						throw new Error("items differ at op " + op);
+			}
+			if (b.size() != expected.size())
+				throw new Error("size differs at op " + op);
+		}
+		StdOut.println("agrees with java.util.ArrayList on 100000 random operations");
+	}
+
+	// seconds per call of max, maxRecursive and reverse on a list of N random
+	// items, each run a few times after a warmup; NaN where MyLinkedList would
+	// need one stack frame per node
+	private static double[] timeTrial(int N, boolean arrays) {
+		Random random = new Random(N);
+		MyArrayLinkedList a = new MyArrayLinkedList();
+		MyLinkedList b = new MyLinkedList();
+		for (int i = 0; i < N; i++) {
+			if (arrays) a.add(random.nextDouble());
+			else b.add(random.nextDouble());
+		}
+		int REPEAT = 5;
+		double[] seconds = new double[3];
+		double sink = 0;
+		for (int round = 0; round < 2; round++) {
+			Stopwatch sw = new Stopwatch();
+			for (int r = 0; r < REPEAT; r++)
+				sink += arrays ? a.max() : b.max();
+			seconds[0] = sw.elapsedTime() / REPEAT;
+			if (arrays) {
+				sw = new Stopwatch();
+				for (int r = 0; r < REPEAT; r++)
+					sink += a.maxRecursive();
+				seconds[1] = sw.elapsedTime() / REPEAT;
+			} else {
+				seconds[1] = Double.NaN;
+			}
+			sw = new Stopwatch();
+			for (int r = 0; r < REPEAT; r++) {
+				if (arrays) a.reverse();
+				else b.reverse();
+			}
+			seconds[2] = sw.elapsedTime() / REPEAT;
+		}
+		if (!(sink > 0)) // uses the results, so the calls cannot be dropped
+			throw new Error("max of random items in [0, 1) should be positive");
+		return seconds;
+	}
+
+	public static void main(String args[]) {
+		testMax();
+		testDelete();
+		testReverse();
+		testRemove();
+		randomTest();
+		testMassDelete(1 << 20);
+
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		double[] arrays = timeTrial(N, true);
+		double[] nodes = timeTrial(N, false);
+		StdOut.printf("N = %d, ms per call\n", N);
+		StdOut.printf("%-14s %12s %18s %8s\n", "", "MyLinkedList", "MyArrayLinkedList", "speedup");
+		String[] names = { "max", "maxRecursive", "reverse" };
+		for (int i = 0; i < 3; i++)
+			StdOut.printf("%-14s %12.2f %18.2f %8.1f\n", names[i], 1000 * nodes[i], 1000 * arrays[i], nodes[i] / arrays[i]);
+	}
+}
@@ -0,0 +1,103 @@
+package Percolation;
+import java.nio.LongBuffer;
+
+/* **************************************************************************
+ *  An N-by-N grid of bits, packed 64 to a long (1 bit per site).
+ *
+ *  Site (i, j) is bit i*N + j + 1 of the array; bit 0 and the bits after
+ *  the last site are always clear, so the three bits around any site can
+ *  be read with one shift of at most two words and no bounds checks.
+ *
+ ****************************************************************************/
+
+public class BitGrid {
+	// neighbour bits returned by neighbours()
+	public static final int BELOW = 1;
+	public static final int ABOVE = 2;
+	public static final int RIGHT = 4;
+	public static final int LEFT  = 8;
+
+	private final int N;
+	private final long[] words;
+
+	// N-by-N grid with every bit clear
+	public BitGrid(int N) {
+		if (N < 0) throw new IllegalArgumentException();
+		if ((long) N * N + 2 > Integer.MAX_VALUE) throw new IllegalArgumentException("grid too large");
+		this.N = N;
+		this.words = new long[wordsFor(N)];
+	}
+
+	// N-by-N grid copied from words previously taken from words() of a grid of the same size
+	BitGrid(int N, LongBuffer words) {
+		this(N);
+		if (words.remaining() != this.words.length) throw new IllegalArgumentException();
+		words.get(this.words);
+	}
+
+	// length of the words() array of an N-by-N grid
+	static int wordsFor(int N) {
+		return ((N * N + 1) >>> 6) + 2;
+	}
+
+	// the backing words, for snapshots
+	long[] words() {
+		return words;
+	}
+
+	// side of the grid
+	public int size() {
+		return N;
+	}
+
+	// is bit (i, j) set?
+	public boolean get(int i, int j) {
+		return get(i * N + j);
+	}
+
+	// is the bit of site i*N + j set?
+	public boolean get(int site) {
+		int b = site + 1;
+		return (words[b >>> 6] & (1L << b)) != 0;
+	}
+
+	// set bit (i, j)
+	public void set(int i, int j) {
+		set(i * N + j);
+	}
+
+	public void set(int site) {
+		int b = site + 1;
+		words[b >>> 6] |= 1L << b;
+	}
+
+	// number of set bits
+	public int count() {
+		int count = 0;
+		for (long w : words)
+			count += Long.bitCount(w);
+		return count;
+	}
+
+	// bits site-1, site and site+1, in bits 0, 1 and 2 of the result
+	private int triple(int site) {
+		int b = site;   // bit index of site-1
+		int off = b & 63;
+		long w = words[b >>> 6] >>> off;
+		if (off > 61) w |= words[(b >>> 6) + 1] << (64 - off);
+		return (int) w & 7;
+	}
+
+	// which of the four neighbours of (i, j) are set, as a combination of
+	// BELOW, ABOVE, RIGHT and LEFT.  LEFT and RIGHT come from a single triple() read.
+	public int neighbours(int i, int j) {
+		int site = i * N + j;
+		int row = triple(site);
+		int mask = 0;
+		if (j + 1 < N && (row & 4) != 0) mask |= RIGHT;
+		if (j > 0 && (row & 1) != 0)     mask |= LEFT;
+		if (i + 1 < N && get(site + N))  mask |= BELOW;
+		if (i > 0 && get(site - N))      mask |= ABOVE;
+		return mask;
+	}
+}
@@ -0,0 +1,151 @@
+package Percolation;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import stdlib.*;
+
+/* **************************************************************************
+ *  Compilation:  javac BondPercolation.java
+ *  Execution:    java BondPercolation
+ *  Dependencies: Lattice.java UF.java XWeightedCompressionUF.java
+ *
+ *  Bond percolation on any Lattice: every site is present, and the bonds
+ *  between neighbouring sites open one at a time.  A bond is named as in
+ *  Lattice.bonds(), by the index of its lower site times the number of
+ *  forward offsets, plus the number of the forward offset to its upper site.
+ *
+ *  Opening a bond is one union.  The union-find slots are the lattice
+ *  slots, then a virtual top slot joined to every site of layer 0 and a
+ *  virtual bottom slot joined to every site of the last layer, so the
+ *  system percolates when the two virtual slots are connected.
+ *
+ ****************************************************************************/
+
+public class BondPercolation {
+	private final Lattice lattice;
+	private final int[] forward;
+	private final boolean[] open;   // open[bond] = bond is open
+	private final int topSlot;
+	private final int bottomSlot;
+	private final UF uf;
+	private int openBonds;
+	private boolean percolates;     // sticky: a spanning system stays spanning
+
+	public BondPercolation(Lattice lattice) {
+		this(lattice, XWeightedCompressionUF::new);
+	}
+
+	// as above, on a union-find structure from uf
+	public BondPercolation(Lattice lattice, IntFunction<UF> uf) {
+		this.lattice = lattice;
+		this.forward = lattice.forwardOffsets();
+		this.open = new boolean[lattice.slots() * forward.length];
+		this.topSlot = lattice.slots();
+		this.bottomSlot = lattice.slots() + 1;
+		this.uf = uf.apply(lattice.slots() + 2);
+		int last = lattice.extent(0) - 1;
+		for (int s = 0; s < lattice.sites(); s++) {
+			int index = lattice.index(s);
+			int layer = lattice.layer(index);
+			if (layer == 0) this.uf.union(index, topSlot);
+			if (layer == last) this.uf.union(index, bottomSlot);
+		}
+	}
+
+	public Lattice lattice() {
+		return lattice;
+	}
+
+	// open bond (from Lattice.bonds) if it is not already
+	public void open(int bond) {
+		if (open[bond]) return;
+		int F = forward.length;
+		int p = bond / F, q = p + forward[bond % F];
+		if (!lattice.isSite(p) || !lattice.isSite(q)) throw new IndexOutOfBoundsException("bond " + bond);
+		open[bond] = true;
+		openBonds++;
+		uf.union(p, q);
+	}
+
+	// is bond open?
+	public boolean isOpen(int bond) {
+		return open[bond];
+	}
+
+	// number of open bonds
+	public int numberOfOpenBonds() {
+		return openBonds;
+	}
+
+	// are the sites at indices p and q joined by open bonds?
+	public boolean connected(int p, int q) {
+		return uf.connected(p, q);
+	}
+
+	// do open bonds connect layer 0 to the last layer?
+	public boolean percolates() {
+		if (!percolates)
+			percolates = uf.connected(topSlot, bottomSlot);
+		return percolates;
+	}
+
+	// open the bonds of lattice in a uniformly random order until it spans;
+	// return the fraction of bonds opened.  The permutation is built lazily.
+	public static double trial(Lattice lattice, SplittableRandom rng, IntFunction<UF> uf) {
+		int[] order = lattice.bonds();
+		int bonds = order.length;
+		BondPercolation perc = new BondPercolation(lattice, uf);
+		int opened = 0;
+		while (!perc.percolates()) {
+			int r = opened + rng.nextInt(bonds - opened);
+			int bond = order[r];
+			order[r] = order[opened];
+			order[opened] = bond;
+			perc.open(bond);
+			opened++;
+		}
+		return bonds == 0 ? 0 : opened / (double) bonds;
+	}
+
+	// does a breadth-first search through the open bonds get from layer 0 to the last layer?
+	private static boolean spansBySearch(Lattice lattice, boolean[] open) {
+		int[] forward = lattice.forwardOffsets();
+		int F = forward.length;
+		boolean[] seen = new boolean[lattice.slots()];
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		for (int s = 0; s < lattice.sites(); s++) {
+			int index = lattice.index(s);
+			if (lattice.layer(index) == 0) { seen[index] = true; queue.add(index); }
+		}
+		while (!queue.isEmpty()) {
+			int p = queue.remove();
+			if (lattice.layer(p) == lattice.extent(0) - 1) return true;
+			for (int f = 0; f < F; f++) {
+				int up = p + forward[f], down = p - forward[f];
+				if (open[p * F + f] && !seen[up]) { seen[up] = true; queue.add(up); }
+				if (open[down * F + f] && !seen[down]) { seen[down] = true; queue.add(down); }
+			}
+		}
+		return false;
+	}
+
+	// percolates() must agree with a breadth-first search on small random lattices
+	public static void main(String[] args) {
+		SplittableRandom rng = new SplittableRandom(42);
+		Lattice.Neighbourhood[] neighbourhoods = Lattice.Neighbourhood.values();
+		for (int trial = 0; trial < 500; trial++) {
+			Lattice.Neighbourhood nb = neighbourhoods[rng.nextInt(neighbourhoods.length)];
+			int d = nb == Lattice.Neighbourhood.TRIANGULAR ? 2 : 1 + rng.nextInt(3);
+			int[] extents = new int[d];
+			for (int k = 0; k < d; k++) extents[k] = 1 + rng.nextInt(8);
+			Lattice lattice = new Lattice(nb, extents);
+			BondPercolation perc = new BondPercolation(lattice);
+			double p = rng.nextDouble();
+			for (int bond : lattice.bonds())
+				if (rng.nextDouble() < p) perc.open(bond);
+			if (perc.percolates() != spansBySearch(lattice, perc.open))
+				throw new Error(lattice + ": percolates() disagrees with breadth-first search");
+		}
+		StdOut.println("percolates() agrees with breadth-first search on 500 random lattices");
+	}
+}
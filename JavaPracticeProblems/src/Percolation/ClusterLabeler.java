@@ -0,0 +1,300 @@
+package Percolation;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import stdlib.*;
+
+/* **************************************************************************
+ *  Compilation:  javac ClusterLabeler.java
+ *  Execution:    java ClusterLabeler
+ *  Dependencies: Percolation.java BitGrid.java XWeightedCompressionUF.java XHistogram.java
+ *
+ *  Parallel Hoshen-Kopelman labelling of the open clusters of a finished
+ *  Percolation grid.
+ *
+ *    1. The rows are cut into horizontal stripes.  In parallel, each stripe
+ *       is labelled with its own union-find, and its clusters are numbered
+ *       0, 1, 2, ... in scan order.
+ *    2. A prefix sum over the stripes turns those numbers into provisional
+ *       labels that are unique across the grid.
+ *    3. A single UF over the provisional labels stitches together the
+ *       clusters that touch across each stripe boundary.  That is one pass
+ *       over N sites per boundary.
+ *    4. In parallel, every site gets the compact final label of its
+ *       provisional label's root.
+ *
+ *  Labels run from 1 to count(); blocked sites are labelled 0.
+ *
+ ****************************************************************************/
+
+public class ClusterLabeler {
+	// don't instantiate
+	private ClusterLabeler() { }
+
+	// cluster labels and sizes of an N-by-N grid
+	public static class Clusters {
+		private final int N;
+		private final int[] labels;    // labels[i*N + j] = cluster of site (i, j), or 0 if blocked
+		private final int[] sizes;     // sizes[l] = number of sites in cluster l; sizes[0] = 0
+
+		Clusters(int N, int[] labels, int[] sizes) {
+			this.N = N;
+			this.labels = labels;
+			this.sizes = sizes;
+		}
+
+		// number of clusters
+		public int count() {
+			return sizes.length - 1;
+		}
+
+		// cluster of site (i, j), or 0 if it is blocked
+		public int label(int i, int j) {
+			return labels[i * N + j];
+		}
+
+		// the label array itself, indexed by i*N + j
+		public int[] labels() {
+			return labels;
+		}
+
+		// number of sites in cluster l
+		public int size(int l) {
+			return sizes[l];
+		}
+
+		// number of sites in the largest cluster
+		public int largest() {
+			int max = 0;
+			for (int s : sizes)
+				max = Math.max(max, s);
+			return max;
+		}
+
+		// counts[s] = number of clusters with exactly s sites
+		public int[] sizeDistribution() {
+			int[] counts = new int[largest() + 1];
+			for (int l = 1; l < sizes.length; l++)
+				counts[sizes[l]]++;
+			return counts;
+		}
+
+		// the cluster sizes as an XHistogram, ready to draw
+		public XHistogram histogram() {
+			XHistogram histogram = new XHistogram(largest() + 1);
+			for (int l = 1; l < sizes.length; l++)
+				histogram.addDataPoint(sizes[l]);
+			return histogram;
+		}
+	}
+
+	// label the open clusters of perc, with four stripes per worker of pool for load balance
+	public static Clusters label(Percolation perc, ForkJoinPool pool) {
+		return label(perc.open, perc.N, pool, 4 * pool.getParallelism());
+	}
+
+	// label the set sites of an N-by-N grid, cut into the given number of stripes
+	static Clusters label(BitGrid open, int N, ForkJoinPool pool, int stripes) {
+		int[] labels = new int[N * N];
+		if (N == 0) return new Clusters(N, labels, new int[1]);
+		stripes = Math.max(1, Math.min(stripes, N));
+		int[] firstRow = new int[stripes + 1];
+		for (int s = 0; s <= stripes; s++)
+			firstRow[s] = (int) ((long) s * N / stripes);
+
+		// 1. label each stripe on its own; labels[] holds stripe-local numbers, -1 if blocked
+		int[][] stripeSizes = new int[stripes][];
+		parallelFor(pool, stripes, s -> stripeSizes[s] = labelStripe(open, N, firstRow[s], firstRow[s + 1], labels));
+
+		// 2. offsets so that offset[s] + local number is unique
+		int[] offset = new int[stripes + 1];
+		for (int s = 0; s < stripes; s++)
+			offset[s + 1] = offset[s] + stripeSizes[s].length;
+
+		// 3. stitch the stripes together across each boundary
+		UF stitch = new XWeightedCompressionUF(offset[stripes]);
+		for (int s = 1; s < stripes; s++) {
+			int below = firstRow[s] * N;
+			int above = below - N;
+			for (int j = 0; j < N; j++)
+				if (labels[above + j] >= 0 && labels[below + j] >= 0)
+					stitch.union(offset[s - 1] + labels[above + j], offset[s] + labels[below + j]);
+		}
+
+		// final label of each provisional label, numbered in scan order of the roots
+		int[] finalLabel = new int[offset[stripes]];
+		int[] rootLabel = new int[offset[stripes]];
+		int count = 0;
+		for (int l = 0; l < finalLabel.length; l++) {
+			int root = stitch.find(l);
+			if (rootLabel[root] == 0) rootLabel[root] = ++count;
+			finalLabel[l] = rootLabel[root];
+		}
+		int[] sizes = new int[count + 1];
+		for (int s = 0; s < stripes; s++)
+			for (int k = 0; k < stripeSizes[s].length; k++)
+				sizes[finalLabel[offset[s] + k]] += stripeSizes[s][k];
+
+		// 4. relabel every site
+		parallelFor(pool, stripes, s -> {
+			for (int site = firstRow[s] * N; site < firstRow[s + 1] * N; site++)
+				labels[site] = labels[site] < 0 ? 0 : finalLabel[offset[s] + labels[site]];
+		});
+		return new Clusters(N, labels, sizes);
+	}
+
+	// label rows [lo, hi) with numbers 0, 1, ... in scan order; return the size of each
+	private static int[] labelStripe(BitGrid open, int N, int lo, int hi, int[] labels) {
+		int base = lo * N;
+		UF uf = new XWeightedCompressionUF((hi - lo) * N);
+		for (int i = lo; i < hi; i++) {
+			for (int j = 0; j < N; j++) {
+				if (!open.get(i, j)) continue;
+				int site = i * N + j - base;
+				if (j + 1 < N && open.get(i, j + 1)) uf.union(site, site + 1);
+				if (i + 1 < hi && open.get(i + 1, j)) uf.union(site, site + N);
+			}
+		}
+		// number[root] = number of the cluster with that root, given when its first site is seen
+		int[] number = new int[(hi - lo) * N];
+		Arrays.fill(number, -1);
+		int count = 0;
+		int[] sizes = new int[16];
+		for (int site = base; site < hi * N; site++) {
+			if (!open.get(site)) { labels[site] = -1; continue; }
+			int root = uf.find(site - base);
+			if (number[root] < 0) {
+				if (count == sizes.length) sizes = Arrays.copyOf(sizes, 2 * count);
+				number[root] = count++;
+			}
+			labels[site] = number[root];
+			sizes[labels[site]]++;
+		}
+		return Arrays.copyOf(sizes, count);
+	}
+
+	// run body(0) .. body(n-1) in parallel on pool
+	private static void parallelFor(ForkJoinPool pool, int n, IntConsumer body) {
+		pool.invoke(new RangeAction(body, 0, n));
+	}
+
+	private static class RangeAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final IntConsumer body;
+		private final int lo, hi;
+
+		RangeAction(IntConsumer body, int lo, int hi) {
+			this.body = body;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo == 1) { body.accept(lo); return; }
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new RangeAction(body, lo, mid), new RangeAction(body, mid, hi));
+		}
+	}
+
+	// open each site of an N-by-N grid with probability p
+	private static Percolation randomGrid(int N, double p, long seed) {
+		SplittableRandom rng = new SplittableRandom(seed);
+		Percolation perc = new Percolation(N);
+		for (int i = 0; i < N; i++)
+			for (int j = 0; j < N; j++)
+				if (rng.nextDouble() < p) perc.open(i, j);
+		return perc;
+	}
+
+	// The oracle: label the open sites of perc by breadth-first search,
+	// sharing no code with label().  oracle[i*N + j] = cluster of (i, j)
+	// numbered 1, 2, ... in scan order of each cluster's first site, or 0 if
+	// (i, j) is blocked; oracle[N*N] = number of clusters.
+	private static int[] bfsLabels(Percolation perc, int N) {
+		int[] oracle = new int[N * N + 1];
+		int[] queue = new int[N * N];
+		int count = 0;
+		for (int start = 0; start < N * N; start++) {
+			if (oracle[start] != 0 || !perc.isOpen(start / N, start % N)) continue;
+			oracle[start] = ++count;
+			int head = 0, tail = 0;
+			queue[tail++] = start;
+			while (head < tail) {
+				int site = queue[head++];
+				int i = site / N, j = site % N;
+				int[][] neighbours = { { i - 1, j }, { i + 1, j }, { i, j - 1 }, { i, j + 1 } };
+				for (int[] n : neighbours) {
+					if (n[0] < 0 || n[0] >= N || n[1] < 0 || n[1] >= N) continue;
+					int next = n[0] * N + n[1];
+					if (oracle[next] == 0 && perc.isOpen(n[0], n[1])) {
+						oracle[next] = count;
+						queue[tail++] = next;
+					}
+				}
+			}
+		}
+		oracle[N * N] = count;
+		return oracle;
+	}
+
+	// clusters must partition the open sites exactly as the BFS oracle does,
+	// with the right sizes, whatever the number of stripes
+	private static void checkAgainst(int[] oracle, Clusters clusters, int N, int stripes) {
+		int count = oracle[N * N];
+		if (clusters.count() != count)
+			throw new Error("Expected " + count + " clusters, got " + clusters.count() + " (N=" + N + ", stripes=" + stripes + ")");
+		int[] toLabel = new int[count + 1];   // oracle cluster -> label
+		int[] toOracle = new int[count + 1];  // label -> oracle cluster
+		int[] oracleSizes = new int[count + 1];
+		for (int i = 0; i < N; i++) {
+			for (int j = 0; j < N; j++) {
+				int o = oracle[i * N + j], l = clusters.label(i, j);
+				if ((o == 0) != (l == 0))
+					throw new Error("site (" + i + ", " + j + ") is labelled " + l + " but " + (o == 0 ? "blocked" : "open"));
+				if (o == 0) continue;
+				if (toLabel[o] == 0 && toOracle[l] == 0) {
+					toLabel[o] = l;
+					toOracle[l] = o;
+				}
+				if (toLabel[o] != l || toOracle[l] != o)
+					throw new Error("site (" + i + ", " + j + ") is in the wrong cluster (N=" + N + ", stripes=" + stripes + ")");
+				oracleSizes[o]++;
+			}
+		}
+		for (int o = 1; o <= count; o++)
+			if (clusters.size(toLabel[o]) != oracleSizes[o])
+				throw new Error("cluster " + toLabel[o] + " has size " + clusters.size(toLabel[o]) + ", expected " + oracleSizes[o]);
+	}
+
+	// labels and sizes must match a breadth-first search, with one stripe
+	// and with many
+	private static void check() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		SplittableRandom rng = new SplittableRandom(42);
+		for (int trial = 0; trial < 200; trial++) {
+			int N = 1 + rng.nextInt(60);
+			Percolation perc = randomGrid(N, 0.3 + 0.5 * rng.nextDouble(), trial);
+			int[] oracle = bfsLabels(perc, N);
+			int stripes = 1 + rng.nextInt(N);
+			checkAgainst(oracle, label(perc.open, N, pool, 1), N, 1);
+			checkAgainst(oracle, label(perc.open, N, pool, stripes), N, stripes);
+		}
+		pool.shutdown();
+		StdOut.println("labels and cluster sizes match breadth-first search on 200 random grids");
+	}
+
+	public static void main(String[] args) {
+		check();
+		final int N = 4096;
+		Percolation perc = randomGrid(N, 0.59, 42);
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		label(perc, pool); // warmup
+		Stopwatch sw = new Stopwatch();
+		Clusters clusters = label(perc, pool);
+		StdOut.format("N=%d clusters=%d largest=%d time=%5.2f (%d workers)\n",
+				N, clusters.count(), clusters.largest(), sw.elapsedTime(), pool.getParallelism());
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,87 @@
+package Percolation;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import stdlib.*;
+/* **************************************************************************
+ *  Compilation:  javac CompactUF.java
+ *  Execution:  java CompactUF
+ *  Dependencies: XWeightedCompressionUF.java StdOut.java
+ *
+ *  Union by rank with path halving in a single int[] (4 bytes per object).
+ *
+ *  A non-negative id[i] is the parent of i.  A root stores its rank as
+ *  the negative number ~rank, so the rank needs no array of its own.
+ *  Ranks never exceed 31, so they always fit.
+ *
+ ****************************************************************************/
+
+public class CompactUF implements UF {
+	private final int[] id;    // id[i] = parent of i, or ~rank if i is a root
+	private int count;         // number of components
+
+	// Create an empty union find data structure with N isolated sets.
+	public CompactUF(int N) {
+		if (N < 0) throw new IllegalArgumentException();
+		count = N;
+		id = new int[N];
+		Arrays.fill(id, ~0);
+	}
+
+	// Return the number of disjoint sets.
+	public int count() {
+		return count;
+	}
+
+	// Return component identifier for component containing p
+	public int find(int p) {
+		int parent;
+		while ((parent = id[p]) >= 0) {
+			int grandparent = id[parent];
+			if (grandparent < 0) return parent;
+			id[p] = grandparent;    // path compression by halving
+			p = grandparent;
+		}
+		return p;
+	}
+
+	// Are objects p and q in the same set?
+	public boolean connected(int p, int q) {
+		return find(p) == find(q);
+	}
+
+	// Replace sets containing p and q with their union.
+	public void union(int p, int q) {
+		int pid = find(p);
+		int qid = find(q);
+		if (pid == qid) return;
+
+		// make lower rank root point to higher one
+		// in the case of a tie, p is the champion and its rank grows
+		int prank = ~id[pid], qrank = ~id[qid];
+		if      (prank < qrank) id[pid] = qid;
+		else if (prank > qrank) id[qid] = pid;
+		else                    { id[qid] = pid; id[pid] = ~(prank + 1); }
+		count--;
+	}
+
+	public String toString() { return Arrays.toString (id); }
+
+	// same unions on a CompactUF and an XWeightedCompressionUF must give the same partition
+	public static void main(String[] args) {
+		final int N = 1000000;
+		SplittableRandom rng = new SplittableRandom(42);
+		CompactUF uf = new CompactUF(N);
+		XWeightedCompressionUF expected = new XWeightedCompressionUF(N);
+		Stopwatch sw = new Stopwatch ();
+		for (int k = 0; k < N; k++) {
+			int p = rng.nextInt(N);
+			int q = rng.nextInt(N);
+			if (uf.connected(p, q) != expected.connected(p, q)) throw new Error("connected(" + p + ", " + q + ") differs");
+			uf.union(p, q);
+			expected.union(p, q);
+		}
+		if (uf.count() != expected.count()) throw new Error("Expected " + expected.count() + " components, got " + uf.count());
+		StdOut.format("CompactUF # components: %d [%f]\n", uf.count(), sw.elapsedTime ());
+	}
+
+}
@@ -0,0 +1,163 @@
+package Percolation;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import stdlib.*;
+/* **************************************************************************
+ *  Compilation:  javac ConcurrentUF.java
+ *  Execution:  java ConcurrentUF
+ *  Dependencies: XWeightedCompressionUF.java StdOut.java
+ *
+ *  Lock-free quick-union, safe to share between threads.
+ *
+ *  Roots are linked by index (the smaller root index always points to the
+ *  larger), so a link never creates a cycle and can be done with a single
+ *  compare-and-set on the smaller root.  find uses path splitting, where
+ *  each step tries to point a node at its grandparent; a failed CAS only
+ *  means another thread already shortened the path, so find never waits.
+ *
+ *  % java ConcurrentUF
+ *  stress test passed: 8 threads, 1000000 sites, 2000000 unions
+ *
+ ****************************************************************************/
+
+public class ConcurrentUF implements UF {
+	private final AtomicIntegerArray id;  // id[i] = parent of i
+	private final AtomicInteger count;    // number of components
+
+	// Create an empty union find data structure with N isolated sets.
+	public ConcurrentUF(int N) {
+		if (N < 0) throw new IllegalArgumentException();
+		count = new AtomicInteger(N);
+		id = new AtomicIntegerArray(N);
+		for (int i = 0; i < N; i++)
+			id.set(i, i);
+	}
+
+	// Return the number of disjoint sets.
+	public int count() {
+		return count.get();
+	}
+
+	// Return component identifier for component containing p
+	public int find(int p) {
+		int parent = id.get(p);
+		while (p != parent) {
+			int grandparent = id.get(parent);
+			if (parent != grandparent)
+				id.compareAndSet(p, parent, grandparent);   // path splitting
+			p = parent;
+			parent = grandparent;
+		}
+		return p;
+	}
+
+	// Are objects p and q in the same set?
+	// Only answers false once p's root is seen to still be a root after both finds.
+	public boolean connected(int p, int q) {
+		while (true) {
+			int pid = find(p);
+			int qid = find(q);
+			if (pid == qid) return true;
+			if (id.get(pid) == pid) return false;
+		}
+	}
+
+	// Replace sets containing p and q with their union.
+	public void union(int p, int q) {
+		while (true) {
+			int pid = find(p);
+			int qid = find(q);
+			if (pid == qid) return;
+			// link by index: smaller root points to larger one
+			if (pid > qid) { int t = pid; pid = qid; qid = t; }
+			if (id.compareAndSet(pid, pid, qid)) {
+				count.decrementAndGet();
+				return;
+			}
+		}
+	}
+
+	public String toString() {
+		int[] a = new int[id.length()];
+		for (int i = 0; i < a.length; i++)
+			a[i] = id.get(i);
+		return Arrays.toString (a);
+	}
+
+	// random pairs of sites in [0, N)
+	private static int[] randomPairs(int N, int M, long seed) {
+		SplittableRandom rng = new SplittableRandom(seed);
+		int[] pairs = new int[2 * M];
+		for (int k = 0; k < pairs.length; k++)
+			pairs[k] = rng.nextInt(N);
+		return pairs;
+	}
+
+	// union pairs[2k], pairs[2k+1] for k = t, t + threads, t + 2*threads, ... on each thread t
+	private static double unionInParallel(UF uf, int[] pairs, int threads) throws InterruptedException {
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int start = t;
+			workers[t] = new Thread(() -> {
+				for (int k = 2 * start; k < pairs.length; k += 2 * threads)
+					uf.union(pairs[k], pairs[k + 1]);
+			});
+		}
+		Stopwatch sw = new Stopwatch();
+		for (Thread w : workers) w.start();
+		for (Thread w : workers) w.join();
+		return sw.elapsedTime();
+	}
+
+	// unions from many threads must give the same partition as one thread
+	private static void stressTest(int N, int M, int threads) throws InterruptedException {
+		for (int round = 0; round < 10; round++) {
+			int[] pairs = randomPairs(N, M, round);
+			ConcurrentUF uf = new ConcurrentUF(N);
+			unionInParallel(uf, pairs, threads);
+			XWeightedCompressionUF expected = new XWeightedCompressionUF(N);
+			for (int k = 0; k < pairs.length; k += 2)
+				expected.union(pairs[k], pairs[k + 1]);
+			if (uf.count() != expected.count())
+				throw new Error("Expected " + expected.count() + " components, got " + uf.count());
+			for (int p = 0; p < N; p++) {
+				int root = expected.find(p);
+				if (uf.find(p) != uf.find(root))
+					throw new Error("Expected " + p + " connected to " + root);
+			}
+		}
+		StdOut.format("stress test passed: %d threads, %d sites, %d unions\n", threads, N, M);
+	}
+
+	// XWeightedCompressionUF behind a lock, the simplest thread-safe alternative
+	private static class LockedUF implements UF {
+		private final XWeightedCompressionUF uf;
+		LockedUF(int N) { uf = new XWeightedCompressionUF(N); }
+		public synchronized int find(int p) { return uf.find(p); }
+		public synchronized int count() { return uf.count(); }
+		public synchronized boolean connected(int p, int q) { return uf.connected(p, q); }
+		public synchronized void union(int p, int q) { uf.union(p, q); }
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		final int N = 1000000;
+		final int M = 2 * N;
+		final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
+		stressTest(N, M, Math.max(8, MAX_THREADS)); // oversubscribe so threads interleave even on few cores
+
+		int[] pairs = randomPairs(N, 4 * M, 42);
+		XWeightedCompressionUF plain = new XWeightedCompressionUF(N);
+		Stopwatch sw = new Stopwatch();
+		for (int k = 0; k < pairs.length; k += 2)
+			plain.union(pairs[k], pairs[k + 1]);
+		StdOut.format("XWeightedCompressionUF, one thread, no lock: %.2f M/s\n", 4 * M / sw.elapsedTime() / 1e6);
+		StdOut.format("%8s %18s %18s\n", "threads", "ConcurrentUF(M/s)", "locked XWCUF(M/s)");
+		for (int threads = 1; threads <= MAX_THREADS; threads += threads) {
+			double lockFree = unionInParallel(new ConcurrentUF(N), pairs, threads);
+			double locked = unionInParallel(new LockedUF(N), pairs, threads);
+			StdOut.format("%8d %18.2f %18.2f\n", threads, 4 * M / lockFree / 1e6, 4 * M / locked / 1e6);
+		}
+	}
+}
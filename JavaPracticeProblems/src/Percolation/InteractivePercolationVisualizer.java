@@ -1,5 +1,4 @@
 package Percolation;
-import algs15.perc.Percolation;
 import stdlib.*;
 //do not change this program
 //use to test perc.java
@@ -31,7 +30,7 @@ public class InteractivePercolationVisualizer {
 		StdOut.println(N);
 
 		Percolation perc = new Percolation(N);
-		PercolationVisualizer.draw(perc, N);
+		PercolationRenderer renderer = new PercolationRenderer(perc, N);
 		StdDraw.show(delay);
 		while (true) {
 
@@ -46,16 +45,14 @@ public class InteractivePercolationVisualizer {
 				int i = (int) (N - Math.floor(y) - 1);
 				int j = (int) (Math.floor(x));
 
-				// open site (i, j) provided it's in bounds
+				// open site (i, j) provided it's in bounds, and draw the N-by-N percolation system
 				if (i >= 0 && i < N && j >= 0 && j < N) {
 					if (!perc.isOpen(i, j)) {
 						StdOut.println(i + " " + j);
 					}
 					perc.open(i, j);
+					PercolationVisualizer.redraw(renderer, perc, N, i, j);
 				}
-
-				// draw N-by-N percolation system
-				PercolationVisualizer.draw(perc, N);
 			}
 			StdDraw.show(delay);
 		}
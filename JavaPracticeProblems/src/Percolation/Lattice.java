@@ -0,0 +1,215 @@
+package Percolation;
+import java.util.Arrays;
+import stdlib.*;
+
+/* **************************************************************************
+ *  Geometry of a d-dimensional box lattice for LatticePercolation.
+ *
+ *  Sites are stored row-major (dimension 0 varies slowest, like i*N + j)
+ *  in an array that has one ghost layer on every side of every dimension,
+ *  so extents L0 x L1 x ... take (L0+2) x (L1+2) x ... slots.  Ghost sites
+ *  are never open.  A neighbour of a real site is therefore always in
+ *  the array, and the neighbours of the site at index p are p + offsets[k]
+ *  for a fixed, precomputed offsets[], with no bounds checks.
+ *
+ *  The system spans along dimension 0, from layer 0 to layer L0-1.
+ *
+ ****************************************************************************/
+
+public class Lattice {
+	// which sites count as neighbours
+	public enum Neighbourhood {
+		// sites one step along a single axis: 2d neighbours
+		VON_NEUMANN,
+		// sites at most one step along every axis: 3^d - 1 neighbours
+		MOORE,
+		// 2D only: the square grid sheared into a triangular lattice, adding the
+		// (-1, +1) and (+1, -1) diagonals.  Sites are then hexagonal cells with 6 neighbours.
+		TRIANGULAR
+	}
+
+	private final int[] extents;          // extents[k] = number of sites along dimension k
+	private final int[] strides;          // strides[k] = index step for one step along dimension k
+	private final Neighbourhood neighbourhood;
+	private final int[] offsets;          // index steps to every neighbour
+	private final int[] forward;          // the positive offsets: one per pair of neighbours
+	private final int sites;              // number of real sites
+	private final int slots;              // number of slots, ghosts included
+
+	// lattice with the given extents, e.g. Lattice(Neighbourhood.VON_NEUMANN, 50, 50, 50)
+	public Lattice(Neighbourhood neighbourhood, int... extents) {
+		int d = extents.length;
+		if (d == 0) throw new IllegalArgumentException("no dimensions");
+		if (neighbourhood == Neighbourhood.TRIANGULAR && d != 2)
+			throw new IllegalArgumentException("the triangular lattice is two-dimensional");
+		this.neighbourhood = neighbourhood;
+		this.extents = extents.clone();
+		this.strides = new int[d];
+		long slots = 1, sites = 1;
+		for (int k = d - 1; k >= 0; k--) {
+			if (extents[k] <= 0) throw new IllegalArgumentException("extent " + extents[k]);
+			strides[k] = (int) slots;
+			slots *= extents[k] + 2;
+			sites *= extents[k];
+			if (slots > Integer.MAX_VALUE - 2) throw new IllegalArgumentException("lattice too large");
+		}
+		this.slots = (int) slots;
+		this.sites = (int) sites;
+		this.offsets = offsets(neighbourhood, strides);
+		this.forward = Arrays.stream(offsets).filter(offset -> offset > 0).toArray();
+	}
+
+	// index steps to the neighbours in the given neighbourhood
+	private static int[] offsets(Neighbourhood neighbourhood, int[] strides) {
+		int d = strides.length;
+		switch (neighbourhood) {
+		case VON_NEUMANN: {
+			int[] offsets = new int[2 * d];
+			for (int k = 0; k < d; k++) {
+				offsets[2 * k] = strides[k];
+				offsets[2 * k + 1] = -strides[k];
+			}
+			return offsets;
+		}
+		case MOORE: {
+			// every vector in {-1, 0, 1}^d but 0, counted in base 3
+			int count = 1;
+			for (int k = 0; k < d; k++) count *= 3;
+			int[] offsets = new int[count - 1];
+			int n = 0;
+			for (int v = 0; v < count; v++) {
+				int offset = 0;
+				for (int k = 0, digits = v; k < d; k++, digits /= 3)
+					offset += (digits % 3 - 1) * strides[k];
+				if (offset != 0) offsets[n++] = offset;
+			}
+			return offsets;
+		}
+		case TRIANGULAR:
+			return new int[] { strides[0], -strides[0], strides[1], -strides[1],
+					strides[0] - strides[1], strides[1] - strides[0] };
+		default:
+			throw new AssertionError(neighbourhood);
+		}
+	}
+
+	// number of dimensions
+	public int dimension() {
+		return extents.length;
+	}
+
+	// number of sites along dimension k
+	public int extent(int k) {
+		return extents[k];
+	}
+
+	public Neighbourhood neighbourhood() {
+		return neighbourhood;
+	}
+
+	// number of real sites
+	public int sites() {
+		return sites;
+	}
+
+	// number of slots an index can address, ghosts included
+	public int slots() {
+		return slots;
+	}
+
+	// index steps from a site to each of its neighbours; do not modify
+	int[] offsets() {
+		return offsets;
+	}
+
+	// the positive offsets, so that each bond between neighbours p < q is
+	// (p, q - p) for exactly one of them; do not modify
+	int[] forwardOffsets() {
+		return forward;
+	}
+
+	// is index a real site rather than a ghost?
+	public boolean isSite(int index) {
+		for (int k = 0; k < extents.length; k++) {
+			int c = index / strides[k] - 1;
+			if (c < 0 || c >= extents[k]) return false;
+			index %= strides[k];
+		}
+		return true;
+	}
+
+	// every bond between two real neighbours, as index * F + f where F is the
+	// number of forward offsets and the neighbour is index + forwardOffsets()[f]
+	public int[] bonds() {
+		int F = forward.length;
+		if ((long) slots * F > Integer.MAX_VALUE) throw new IllegalArgumentException("too many bonds to number");
+		int[] bonds = new int[16];
+		int n = 0;
+		for (int s = 0; s < sites; s++) {
+			int index = index(s);
+			for (int f = 0; f < F; f++) {
+				if (!isSite(index + forward[f])) continue;
+				if (n == bonds.length) bonds = Arrays.copyOf(bonds, 2 * n);
+				bonds[n++] = index * F + f;
+			}
+		}
+		return Arrays.copyOf(bonds, n);
+	}
+
+	// index of the site with the given coordinates
+	public int index(int... coordinates) {
+		if (coordinates.length != extents.length) throw new IllegalArgumentException();
+		int index = 0;
+		for (int k = 0; k < extents.length; k++) {
+			if (coordinates[k] < 0 || coordinates[k] >= extents[k])
+				throw new IndexOutOfBoundsException("coordinate " + k + " = " + coordinates[k]);
+			index += (coordinates[k] + 1) * strides[k];
+		}
+		return index;
+	}
+
+	// index of the n-th real site in row-major order, 0 <= n < sites()
+	public int index(int n) {
+		int index = 0;
+		for (int k = extents.length - 1; k >= 0; k--) {
+			index += (n % extents[k] + 1) * strides[k];
+			n /= extents[k];
+		}
+		return index;
+	}
+
+	// the indices of all real sites, in row-major order
+	public int[] indices() {
+		int[] indices = new int[sites];
+		for (int n = 0; n < sites; n++)
+			indices[n] = index(n);
+		return indices;
+	}
+
+	// coordinate along dimension 0 of the site at index
+	public int layer(int index) {
+		return index / strides[0] - 1;
+	}
+
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for (int k = 0; k < extents.length; k++)
+			s.append(k == 0 ? "" : "x").append(extents[k]);
+		return s + " " + neighbourhood;
+	}
+
+	public static void main(String[] args) {
+		Lattice cube = new Lattice(Neighbourhood.MOORE, 3, 4, 5);
+		if (cube.offsets().length != 26) throw new Error("Expected 26 Moore neighbours in 3D");
+		for (int n = 0; n < cube.sites(); n++) {
+			int i = n / 20, j = n / 5 % 4, k = n % 5;
+			if (cube.index(n) != cube.index(i, j, k)) throw new Error("index(" + n + ") differs");
+			if (cube.layer(cube.index(n)) != i) throw new Error("layer of " + n + " differs");
+		}
+		int[] sorted = cube.offsets().clone();
+		Arrays.sort(sorted);
+		for (int k = 0; k < sorted.length; k++)
+			if (sorted[k] != -sorted[sorted.length - 1 - k]) throw new Error("offsets are not symmetric");
+		StdOut.println(cube + ": " + cube.sites() + " sites in " + cube.slots() + " slots, offsets " + Arrays.toString(sorted));
+	}
+}
@@ -0,0 +1,88 @@
+package Percolation;
+import java.util.function.IntFunction;
+
+/* **************************************************************************
+ *  Site percolation on any Lattice: d-dimensional boxes with von Neumann
+ *  or Moore neighbourhoods, or the 2D triangular lattice.
+ *
+ *  Works like Percolation, with sites named by their Lattice index and
+ *  spanning along dimension 0.  The union-find slots are the lattice
+ *  slots, followed by a virtual top and a virtual bottom slot.  Ghost
+ *  slots are never open, so open() unions with every open neighbour in
+ *  one loop over the lattice's offsets, with no bounds checks.
+ *
+ ****************************************************************************/
+
+public class LatticePercolation {
+	private final Lattice lattice;
+	private final int[] offsets;
+	private final int last;        // last layer along dimension 0
+	private final boolean[] open;  // open[index] = site is open; ghosts stay false
+	private final int topSlot;
+	private final int bottomSlot;
+	private final UF Wu;           // slots + top + bottom, answers percolates()
+	private final UF full;         // slots + top only, answers isFull() without backwash
+	private int openSites;
+	private boolean percolates;    // sticky: a spanning system stays spanning
+
+	public LatticePercolation(Lattice lattice) {
+		this(lattice, XWeightedCompressionUF::new);
+	}
+
+	// as above, building both union-find structures with uf
+	public LatticePercolation(Lattice lattice, IntFunction<UF> uf) {
+		this.lattice = lattice;
+		this.offsets = lattice.offsets();
+		this.last = lattice.extent(0) - 1;
+		this.open = new boolean[lattice.slots()];
+		this.topSlot = lattice.slots();
+		this.bottomSlot = lattice.slots() + 1;
+		this.Wu = uf.apply(lattice.slots() + 2);
+		this.full = uf.apply(lattice.slots() + 1);
+	}
+
+	public Lattice lattice() {
+		return lattice;
+	}
+
+	// open the site at index (from Lattice.index) if it is not already
+	public void open(int index) {
+		if (!lattice.isSite(index)) throw new IndexOutOfBoundsException("index " + index);
+		if (open[index]) return;
+		int layer = lattice.layer(index);
+		open[index] = true;
+		openSites++;
+		if (layer == 0) union(index, topSlot);
+		if (layer == last) Wu.union(index, bottomSlot);
+		for (int offset : offsets)
+			if (open[index + offset]) union(index, index + offset);
+	}
+
+	// union p and q in both structures
+	private void union(int p, int q) {
+		Wu.union(p, q);
+		full.union(p, q);
+	}
+
+	// is the site at index open?
+	public boolean isOpen(int index) {
+		return open[index];
+	}
+
+	// number of open sites
+	public int numberOfOpenSites() {
+		return openSites;
+	}
+
+	// is the site at index connected to layer 0 through open sites?
+	public boolean isFull(int index) {
+		return open[index] && full.connected(index, topSlot);
+	}
+
+	// do open sites connect layer 0 to the last layer?
+	public boolean percolates() {
+		if (!percolates)
+			percolates = Wu.connected(topSlot, bottomSlot);
+		return percolates;
+	}
+}
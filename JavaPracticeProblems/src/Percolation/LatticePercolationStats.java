@@ -0,0 +1,193 @@
+package Percolation;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import stdlib.*;
+
+/* **************************************************************************
+ *  Compilation:  javac LatticePercolationStats.java
+ *  Execution:    java LatticePercolationStats
+ *  Dependencies: Lattice.java LatticePercolation.java BondPercolation.java ParallelTrials.java
+ *
+ *  PercolationStats for any Lattice: T independent trials run in parallel
+ *  with ParallelTrials, each opening the sites (or, for the BOND model,
+ *  the bonds) of a random permutation until the lattice spans dimension 0.
+ *
+ *  % java LatticePercolationStats
+ *  checks LatticePercolation against Percolation, then estimates the site
+ *  thresholds of the square (~0.5927), triangular (0.5), 2D Moore (~0.4073),
+ *  simple cubic (~0.3116), 3D Moore (~0.0976) and 4D hypercubic (~0.1968)
+ *  lattices, and the bond thresholds of the square (0.5), triangular
+ *  (~0.3473), simple cubic (~0.2488) and 4D hypercubic (~0.1601) lattices.
+ *  The finite-size estimates drift towards those as L grows.
+ *
+ ****************************************************************************/
+
+public class LatticePercolationStats {
+	// what opens at random
+	public enum Model {
+		// sites open; neighbouring open sites are joined (LatticePercolation)
+		SITE,
+		// every site is present; bonds between neighbours open (BondPercolation)
+		BOND
+	}
+
+	private final Lattice lattice;
+	private final Model model;
+	private final double[] results;
+
+	// perform T independent experiments on lattice in parallel on pool;
+	// the results depend only on seed, not on the pool's parallelism
+	public LatticePercolationStats(Lattice lattice, int T, long seed, ForkJoinPool pool) {
+		this(lattice, T, seed, pool, Model.SITE);
+	}
+
+	// as above, for the given model; the thresholds are fractions of open sites or of open bonds
+	public LatticePercolationStats(Lattice lattice, int T, long seed, ForkJoinPool pool, Model model) {
+		this(lattice, T, seed, pool, model, XWeightedCompressionUF::new);
+	}
+
+	// as above, with each trial built on union-find structures from uf
+	public LatticePercolationStats(Lattice lattice, int T, long seed, ForkJoinPool pool, Model model, IntFunction<UF> uf) {
+		if (T <= 0) throw new IllegalArgumentException();
+		this.lattice = lattice;
+		this.model = model;
+		if (model == Model.BOND)
+			this.results = ParallelTrials.run(pool, T, seed, rng -> BondPercolation.trial(lattice, rng, uf));
+		else
+			this.results = ParallelTrials.run(pool, T, seed, rng -> trial(lattice, rng, uf));
+	}
+
+	// open the sites of lattice in a uniformly random order until it spans;
+	// return the fraction of sites opened.  As in PercolationStats.openOrderTrial,
+	// the permutation is built lazily.
+	public static double trial(Lattice lattice, SplittableRandom rng, IntFunction<UF> uf) {
+		int sites = lattice.sites();
+		int[] order = lattice.indices();
+		LatticePercolation perc = new LatticePercolation(lattice, uf);
+		int opened = 0;
+		while (!perc.percolates()) {
+			int r = opened + rng.nextInt(sites - opened);
+			int index = order[r];
+			order[r] = order[opened];
+			order[opened] = index;
+			perc.open(index);
+			opened++;
+		}
+		return opened / (double) sites;
+	}
+
+	public Lattice lattice() {
+		return lattice;
+	}
+
+	public Model model() {
+		return model;
+	}
+
+	// number of trials run
+	public int trials() {
+		return results.length;
+	}
+
+	// sample mean of percolation threshold
+	public double mean() {
+		return StdStats.mean(results);
+	}
+
+	// sample standard deviation of percolation threshold
+	public double stddev() {
+		return StdStats.stddev(results);
+	}
+
+	// low end of 95% confidence interval
+	public double confidenceLow() {
+		return mean() - 1.96 * stddev() / Math.sqrt(results.length);
+	}
+
+	// high end of 95% confidence interval
+	public double confidenceHigh() {
+		return mean() + 1.96 * stddev() / Math.sqrt(results.length);
+	}
+
+	// a 2D von Neumann lattice must behave exactly like Percolation
+	private static void checkAgainstPercolation() {
+		SplittableRandom rng = new SplittableRandom(42);
+		for (int trial = 0; trial < 300; trial++) {
+			int N = 1 + rng.nextInt(30);
+			Lattice lattice = new Lattice(Lattice.Neighbourhood.VON_NEUMANN, N, N);
+			LatticePercolation lp = new LatticePercolation(lattice);
+			Percolation perc = new Percolation(N);
+			for (int k = 0; k < N * N; k++) {
+				int i = rng.nextInt(N), j = rng.nextInt(N);
+				perc.open(i, j);
+				lp.open(lattice.index(i, j));
+				if (lp.percolates() != perc.percolates()) throw new Error("percolates() differs for N=" + N);
+			}
+			for (int i = 0; i < N; i++)
+				for (int j = 0; j < N; j++)
+					if (lp.isFull(lattice.index(i, j)) != perc.isFull(i, j)) throw new Error("isFull differs for N=" + N);
+		}
+		StdOut.println("2D von Neumann lattices agree with Percolation on 300 random grids");
+	}
+
+	// open() must reject every index that is not a real site, in the ghost
+	// layer of any dimension, so that ghost sites stay closed
+	private static void checkGhostsRejected() {
+		Lattice[] lattices = {
+				new Lattice(Lattice.Neighbourhood.VON_NEUMANN, 3, 3),
+				new Lattice(Lattice.Neighbourhood.TRIANGULAR, 4, 5),
+				new Lattice(Lattice.Neighbourhood.MOORE, 3, 4, 5),
+		};
+		for (Lattice lattice : lattices) {
+			LatticePercolation lp = new LatticePercolation(lattice);
+			int rejected = 0;
+			for (int index = -1; index <= lattice.slots(); index++) {
+				if (index >= 0 && index < lattice.slots() && lattice.isSite(index)) continue;
+				try {
+					lp.open(index);
+					throw new Error("opened ghost index " + index + " of " + lattice);
+				} catch (IndexOutOfBoundsException e) {
+					rejected++;
+				}
+			}
+			if (lp.numberOfOpenSites() != 0) throw new Error("ghost sites were opened");
+			if (rejected != lattice.slots() - lattice.sites() + 2) throw new Error("not every ghost was tried");
+			for (int index : lattice.indices())
+				lp.open(index);
+			if (lp.numberOfOpenSites() != lattice.sites() || !lp.percolates()) throw new Error("real sites were rejected");
+		}
+		StdOut.println("open() rejects every ghost index");
+	}
+
+	public static void main(String[] args) {
+		checkGhostsRejected();
+		checkAgainstPercolation();
+		final int T = 100;
+		final long SEED = 42;
+		Lattice[] lattices = {
+				new Lattice(Lattice.Neighbourhood.VON_NEUMANN, 256, 256),
+				new Lattice(Lattice.Neighbourhood.TRIANGULAR, 256, 256),
+				new Lattice(Lattice.Neighbourhood.MOORE, 256, 256),
+				new Lattice(Lattice.Neighbourhood.VON_NEUMANN, 40, 40, 40),
+				new Lattice(Lattice.Neighbourhood.MOORE, 40, 40, 40),
+				new Lattice(Lattice.Neighbourhood.VON_NEUMANN, 14, 14, 14, 14),
+		};
+		Lattice[] bondLattices = {
+				new Lattice(Lattice.Neighbourhood.VON_NEUMANN, 256, 256),
+				new Lattice(Lattice.Neighbourhood.TRIANGULAR, 256, 256),
+				new Lattice(Lattice.Neighbourhood.VON_NEUMANN, 40, 40, 40),
+				new Lattice(Lattice.Neighbourhood.VON_NEUMANN, 14, 14, 14, 14),
+		};
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		for (Model model : Model.values()) {
+			for (Lattice lattice : model == Model.SITE ? lattices : bondLattices) {
+				Stopwatch timer = new Stopwatch();
+				LatticePercolationStats stats = new LatticePercolationStats(lattice, T, SEED, pool, model);
+				StdOut.format("T=%d %-4s %-26s sites=%7d mean=%6.4f confidence=[%6.4f,%6.4f] time=%5.2f\n",
+						T, model, lattice, lattice.sites(), stats.mean(), stats.confidenceLow(), stats.confidenceHigh(), timer.elapsedTime());
+			}
+		}
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,86 @@
+package Percolation;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+/* **************************************************************************
+ *  Compilation:  javac MappedUF.java
+ *  Dependencies: CompactUF.java PercolationSnapshot.java
+ *
+ *  Union by rank with path halving over entries that stay in a file.
+ *
+ *  Same layout as CompactUF: a non-negative entry is the parent, a root
+ *  stores ~rank.  The entries are a section of a snapshot file, mapped
+ *  privately (copy-on-write) in pages of 2^24 ints, so building one costs
+ *  only the mapping: pages are read in as they are touched, and later
+ *  unions change this process's copy of a page, never the file.
+ *
+ ****************************************************************************/
+
+public class MappedUF implements UF {
+	private static final int PAGE_SHIFT = 24;
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;     // ints per page
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	private final IntBuffer[] pages;    // entry i is pages[i >>> PAGE_SHIFT].get(i & PAGE_MASK)
+	private int count;                  // number of components
+
+	// The N big-endian int entries at byte position of channel, in CompactUF's
+	// layout, holding count components.  channel must be open for reading
+	// and writing, which a private mapping requires; nothing is written to it.
+	MappedUF(FileChannel channel, long position, int N, int count) throws IOException {
+		if (N < 0 || count < 0 || count > N) throw new IllegalArgumentException();
+		this.count = count;
+		int numPages = (int) (((long) N + PAGE_SIZE - 1) >>> PAGE_SHIFT);
+		pages = new IntBuffer[numPages];
+		for (int k = 0; k < numPages; k++) {
+			long first = (long) k << PAGE_SHIFT;
+			int size = (int) Math.min(PAGE_SIZE, N - first);
+			pages[k] = channel.map(FileChannel.MapMode.PRIVATE, position + 4 * first, 4L * size).asIntBuffer();
+		}
+	}
+
+	private int get(int i) {
+		return pages[i >>> PAGE_SHIFT].get(i & PAGE_MASK);
+	}
+
+	private void set(int i, int value) {
+		pages[i >>> PAGE_SHIFT].put(i & PAGE_MASK, value);
+	}
+
+	// Return the number of disjoint sets.
+	public int count() {
+		return count;
+	}
+
+	// Return component identifier for component containing p
+	public int find(int p) {
+		int parent;
+		while ((parent = get(p)) >= 0) {
+			int grandparent = get(parent);
+			if (grandparent < 0) return parent;
+			set(p, grandparent);    // path compression by halving
+			p = grandparent;
+		}
+		return p;
+	}
+
+	// Are objects p and q in the same set?
+	public boolean connected(int p, int q) {
+		return find(p) == find(q);
+	}
+
+	// Replace sets containing p and q with their union.
+	public void union(int p, int q) {
+		int pid = find(p);
+		int qid = find(q);
+		if (pid == qid) return;
+
+		// make lower rank root point to higher one
+		// in the case of a tie, p is the champion and its rank grows
+		int prank = ~get(pid), qrank = ~get(qid);
+		if      (prank < qrank) set(pid, qid);
+		else if (prank > qrank) set(qid, pid);
+		else                    { set(qid, pid); set(pid, ~(prank + 1)); }
+		count--;
+	}
+}
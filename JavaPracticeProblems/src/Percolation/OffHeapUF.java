@@ -0,0 +1,132 @@
+package Percolation;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.SplittableRandom;
+import stdlib.*;
+/* **************************************************************************
+ *  Compilation:  javac OffHeapUF.java
+ *  Execution:  java OffHeapUF [N]
+ *  Dependencies: CompactUF.java StdOut.java
+ *
+ *  Union by rank with path halving, stored outside the Java heap.
+ *
+ *  Same layout as CompactUF, widened to longs: a non-negative entry is the
+ *  parent, a root stores ~rank.  The entries live in direct ByteBuffers of
+ *  2^24 longs each, so N may exceed 2^31 and the heap only holds the page
+ *  table.  The long methods take any index in [0, N); the UF methods work
+ *  whenever the values involved fit in an int.
+ *
+ ****************************************************************************/
+
+public class OffHeapUF implements UF {
+	private static final int PAGE_SHIFT = 24;
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;     // longs per page
+	private static final long PAGE_MASK = PAGE_SIZE - 1;
+
+	private final LongBuffer[] pages;   // entry i is pages[i >>> PAGE_SHIFT].get(i & PAGE_MASK)
+	private final long N;
+	private long count;                 // number of components
+
+	// Create an empty union find data structure with N isolated sets.
+	public OffHeapUF(long N) {
+		if (N < 0) throw new IllegalArgumentException();
+		this.N = N;
+		this.count = N;
+		int numPages = (int) ((N + PAGE_SIZE - 1) >>> PAGE_SHIFT);
+		pages = new LongBuffer[numPages];
+		for (int k = 0; k < numPages; k++) {
+			int size = (int) Math.min(PAGE_SIZE, N - ((long) k << PAGE_SHIFT));
+			pages[k] = ByteBuffer.allocateDirect(size * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+			for (int i = 0; i < size; i++)
+				pages[k].put(i, ~0L);
+		}
+	}
+
+	private long get(long i) {
+		return pages[(int) (i >>> PAGE_SHIFT)].get((int) (i & PAGE_MASK));
+	}
+
+	private void set(long i, long value) {
+		pages[(int) (i >>> PAGE_SHIFT)].put((int) (i & PAGE_MASK), value);
+	}
+
+	// number of objects
+	public long size() {
+		return N;
+	}
+
+	// Return the number of disjoint sets.
+	public long countLong() {
+		return count;
+	}
+
+	// Return component identifier for component containing p
+	public long find(long p) {
+		if (p < 0 || p >= N) throw new IndexOutOfBoundsException();
+		long parent;
+		while ((parent = get(p)) >= 0) {
+			long grandparent = get(parent);
+			if (grandparent < 0) return parent;
+			set(p, grandparent);    // path compression by halving
+			p = grandparent;
+		}
+		return p;
+	}
+
+	// Are objects p and q in the same set?
+	public boolean connected(long p, long q) {
+		return find(p) == find(q);
+	}
+
+	// Replace sets containing p and q with their union.
+	public void union(long p, long q) {
+		long pid = find(p);
+		long qid = find(q);
+		if (pid == qid) return;
+
+		// make lower rank root point to higher one
+		// in the case of a tie, p is the champion and its rank grows
+		long prank = ~get(pid), qrank = ~get(qid);
+		if      (prank < qrank) set(pid, qid);
+		else if (prank > qrank) set(qid, pid);
+		else                    { set(qid, pid); set(pid, ~(prank + 1)); }
+		count--;
+	}
+
+	public int count() {
+		return Math.toIntExact(count);
+	}
+
+	public int find(int p) {
+		return Math.toIntExact(find((long) p));
+	}
+
+	public boolean connected(int p, int q) {
+		return connected((long) p, (long) q);
+	}
+
+	public void union(int p, int q) {
+		union((long) p, (long) q);
+	}
+
+	// same unions on an OffHeapUF and a CompactUF must give the same partition
+	public static void main(String[] args) {
+		int N = 1000000;
+		if (args.length == 1) N = Integer.parseInt(args[0]);
+		SplittableRandom rng = new SplittableRandom(42);
+		OffHeapUF uf = new OffHeapUF(N);
+		CompactUF expected = new CompactUF(N);
+		Stopwatch sw = new Stopwatch ();
+		for (int k = 0; k < N; k++) {
+			int p = rng.nextInt(N);
+			int q = rng.nextInt(N);
+			if (uf.connected(p, q) != expected.connected(p, q)) throw new Error("connected(" + p + ", " + q + ") differs");
+			uf.union(p, q);
+			expected.union(p, q);
+		}
+		if (uf.count() != expected.count()) throw new Error("Expected " + expected.count() + " components, got " + uf.count());
+		StdOut.format("OffHeapUF # components: %d [%f]\n", uf.count(), sw.elapsedTime ());
+	}
+
+}
@@ -0,0 +1,185 @@
+package Percolation;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import stdlib.*;
+/* **************************************************************************
+ *  Compilation:  javac ParallelComponents.java
+ *  Execution:    java ParallelComponents [file]
+ *  Dependencies: XWeightedCompressionUF.java StdOut.java
+ *  Data files:   http://algs4.cs.princeton.edu/15uf/largeUF.txt
+ *
+ *  Connected components of a large edge list, in parallel.
+ *
+ *  The edges are split into one chunk per worker.  Each chunk is unioned
+ *  into its own local forest, and the forests are merged pairwise: for
+ *  every site i whose root r in the right forest differs from i, the left
+ *  forest gets union(i, r).  A merge costs O(N) no matter how many edges
+ *  the chunks held, so the edge work parallelizes and only the merges
+ *  (log P levels of them, themselves run in parallel) are extra.
+ *
+ *  readEdges parses the UF text format (N followed by pairs) straight
+ *  from bytes, which is far cheaper than reading it with StdIn.readInt.
+ *
+ *  With a file argument, reports the components of that file; without
+ *  one, compares UF.unionAll with the parallel engine on random edges.
+ *
+ ****************************************************************************/
+
+public class ParallelComponents {
+	// don't instantiate
+	private ParallelComponents() { }
+
+	// an edge list over sites 0 through N-1: edge k joins p[k] and q[k]
+	public static class Edges {
+		public final int N;
+		public final int[] p, q;
+
+		public Edges(int N, int[] p, int[] q) {
+			if (p.length != q.length) throw new IllegalArgumentException();
+			this.N = N;
+			this.p = p;
+			this.q = q;
+		}
+	}
+
+	// union every edge into a new XWeightedCompressionUF of size N, in parallel on pool
+	public static UF components(int N, int[] p, int[] q, ForkJoinPool pool) {
+		if (p.length != q.length) throw new IllegalArgumentException();
+		int chunk = Math.max(1, (p.length + pool.getParallelism() - 1) / pool.getParallelism());
+		return pool.invoke(new ForestTask(N, p, q, 0, p.length, chunk));
+	}
+
+	public static UF components(Edges edges, ForkJoinPool pool) {
+		return components(edges.N, edges.p, edges.q, pool);
+	}
+
+	// add every link of that to uf: afterwards uf is the union of both partitions
+	static void merge(UF uf, UF that, int N) {
+		for (int i = 0; i < N; i++) {
+			int root = that.find(i);
+			if (root != i) uf.union(i, root);
+		}
+	}
+
+	// builds the forest for edges [lo, hi), splitting until a range is at most chunk edges
+	private static class ForestTask extends RecursiveTask<UF> {
+		private static final long serialVersionUID = 1L;
+		private final int N;
+		private final int[] p, q;
+		private final int lo, hi, chunk;
+
+		ForestTask(int N, int[] p, int[] q, int lo, int hi, int chunk) {
+			this.N = N;
+			this.p = p;
+			this.q = q;
+			this.lo = lo;
+			this.hi = hi;
+			this.chunk = chunk;
+		}
+
+		protected UF compute() {
+			if (hi - lo <= chunk) {
+				UF uf = new XWeightedCompressionUF(N);
+				for (int k = lo; k < hi; k++)
+					uf.union(p[k], q[k]);
+				return uf;
+			}
+			int mid = (lo + hi) >>> 1;
+			ForestTask left = new ForestTask(N, p, q, lo, mid, chunk);
+			left.fork();
+			UF right = new ForestTask(N, p, q, mid, hi, chunk).compute();
+			UF uf = left.join();
+			merge(uf, right, N);
+			return uf;
+		}
+	}
+
+	// read N followed by pairs of non-negative ints, as in tinyUF.txt
+	public static Edges readEdges(String filename) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(filename), 1 << 16)) {
+			int N = readInt(in);
+			int[] p = new int[1024], q = new int[1024];
+			int M = 0;
+			while (true) {
+				int a = readInt(in);
+				if (a < 0) break;
+				int b = readInt(in);
+				if (b < 0) throw new IOException("odd number of sites in " + filename);
+				if (M == p.length) {
+					p = Arrays.copyOf(p, 2 * M);
+					q = Arrays.copyOf(q, 2 * M);
+				}
+				p[M] = a;
+				q[M] = b;
+				M++;
+			}
+			return new Edges(N, Arrays.copyOf(p, M), Arrays.copyOf(q, M));
+		}
+	}
+
+	// next non-negative decimal int in the stream, or -1 at end of input
+	private static int readInt(InputStream in) throws IOException {
+		int c = in.read();
+		while (c != -1 && (c < '0' || c > '9'))
+			c = in.read();
+		if (c == -1) return -1;
+		int x = 0;
+		while (c >= '0' && c <= '9') {
+			x = 10 * x + (c - '0');
+			c = in.read();
+		}
+		return x;
+	}
+
+	private static Edges randomEdges(int N, int M, long seed) {
+		SplittableRandom rng = new SplittableRandom(seed);
+		int[] p = new int[M], q = new int[M];
+		for (int k = 0; k < M; k++) {
+			p[k] = rng.nextInt(N);
+			q[k] = rng.nextInt(N);
+		}
+		return new Edges(N, p, q);
+	}
+
+	public static void main(String[] args) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		if (args.length == 1) {
+			Stopwatch sw = new Stopwatch ();
+			Edges edges = readEdges(args[0]);
+			double read = sw.elapsedTime ();
+			UF uf = components(edges, pool);
+			StdOut.format("ParallelComponents # components: %d [read %f, union %f]\n", uf.count(), read, sw.elapsedTime () - read);
+			pool.shutdown();
+			return;
+		}
+
+		final int MAX = 100000000;
+		StdOut.format("%10s %10s %12s %12s %8s\n", "edges", "sites", "unionAll(s)", "parallel(s)", "speedup");
+		for (int M = 1000000; M <= MAX; M *= 10) {
+			int N = M / 2;
+			Edges edges;
+			try {
+				edges = randomEdges(N, M, 42);
+			} catch (OutOfMemoryError e) {
+				StdOut.format("%10d: not enough memory, rerun with a larger -Xmx\n", M);
+				break;
+			}
+			Stopwatch sw = new Stopwatch ();
+			UF sequential = new XWeightedCompressionUF(N);
+			sequential.unionAll(edges.p, edges.q);
+			double loop = sw.elapsedTime ();
+			sw = new Stopwatch ();
+			UF parallel = components(edges, pool);
+			double par = sw.elapsedTime ();
+			if (parallel.count() != sequential.count()) throw new Error("component counts differ");
+			StdOut.format("%10d %10d %12.3f %12.3f %8.2f\n", M, N, loop, par, loop / par);
+		}
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,122 @@
+package Percolation;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/* **************************************************************************
+ *  Fork-join engine for running T independent Monte Carlo trials.
+ *
+ *  Trial t always draws from the t-th stream split off a root
+ *  SplittableRandom seeded with the given seed, so the results for a
+ *  given seed are the same no matter how many threads run them or in
+ *  which order the trials finish.
+ *
+ *  Given a TrialLog, trials already in the log are skipped and every
+ *  finished trial is recorded, so a run that is killed can be resumed.
+ *
+ ****************************************************************************/
+
+public class ParallelTrials {
+	// ranges of at most this many trials are run directly instead of being split
+	private static final int THRESHOLD = 1;
+
+	// a single experiment, drawing all of its randomness from rng
+	public interface Trial {
+		double run(SplittableRandom rng);
+	}
+
+	// don't instantiate
+	private ParallelTrials() { }
+
+	// one independent random stream per trial, split off in order from the seed
+	public static SplittableRandom[] streams(int T, long seed) {
+		return streams(new SplittableRandom(seed), T);
+	}
+
+	// the next T streams split off root.  Taking streams in batches from one root
+	// gives the same streams, in the same order, as taking them all at once.
+	public static SplittableRandom[] streams(SplittableRandom root, int T) {
+		SplittableRandom[] rngs = new SplittableRandom[T];
+		for (int t = 0; t < T; t++)
+			rngs[t] = root.split();
+		return rngs;
+	}
+
+	// run T trials on pool and return results[t] = result of trial t
+	public static double[] run(ForkJoinPool pool, int T, long seed, Trial trial) {
+		if (T <= 0) throw new IllegalArgumentException();
+		return run(pool, streams(T, seed), trial);
+	}
+
+	// run one trial per stream of rngs on pool and return results[t] = result of trial t
+	public static double[] run(ForkJoinPool pool, SplittableRandom[] rngs, Trial trial) {
+		double[] results = new double[rngs.length];
+		pool.invoke(new TrialTask(trial, rngs, results, null, 0, rngs.length));
+		return results;
+	}
+
+	// run the trials of log that have not finished yet on pool, recording each
+	// one in log; return the results of all of them, old and new
+	public static double[] run(ForkJoinPool pool, TrialLog log, Trial trial) throws IOException {
+		int T = log.trials();
+		double[] results = new double[T];
+		pool.invoke(new TrialTask(trial, streams(T, log.seed()), results, log, 0, T));
+		log.flush();
+		return results;
+	}
+
+	// run T trials on a pool with the given number of worker threads
+	public static double[] run(int threads, int T, long seed, Trial trial) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return run(pool, T, seed, trial);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// resume the trials of log on a pool with the given number of worker threads
+	public static double[] run(int threads, TrialLog log, Trial trial) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return run(pool, log, trial);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// runs trials [lo, hi), splitting the range in half until it is small enough
+	private static class TrialTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Trial trial;
+		private final SplittableRandom[] rngs;
+		private final double[] results;
+		private final TrialLog log;   // null if the run is not logged
+		private final int lo, hi;
+
+		TrialTask(Trial trial, SplittableRandom[] rngs, double[] results, TrialLog log, int lo, int hi) {
+			this.trial = trial;
+			this.rngs = rngs;
+			this.results = results;
+			this.log = log;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo <= THRESHOLD) {
+				for (int t = lo; t < hi; t++) {
+					if (log == null) { results[t] = trial.run(rngs[t]); continue; }
+					if (log.isDone(t)) { results[t] = log.result(t); continue; }
+					results[t] = trial.run(rngs[t]);
+					log.record(t, results[t]);
+				}
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new TrialTask(trial, rngs, results, log, lo, mid),
+					new TrialTask(trial, rngs, results, log, mid, hi));
+		}
+	}
+}
@@ -1,4 +1,5 @@
 package Percolation;
+import java.util.function.IntFunction;
 
 //use interactive perc vis to test
 // Uncomment the import statements above.
@@ -8,61 +9,101 @@ package Percolation;
 // except percolates(), which may make up to N calls to the UF data structure.
 public class Percolation {
 	int N;
-	boolean[] open;
+	BitGrid open;        // open sites, 1 bit per site
 	int topSlot; // id=0
 	int bottomSlot; // id=N*N+1
-	WeightedUF Wu;
+	UF Wu;       // sites + top slot + bottom slot, answers percolates()
+	UF full;     // sites + top slot only, answers isFull() without backwash
+	BitGrid fullCache;   // sites known to be full; sites never stop being full
+	int openSites;       // number of set bits in open
+	boolean percolates;  // sticky for the same reason
 
 	public Percolation(int N) {
+		this(N, XWeightedCompressionUF::new);
+	}
+
+	// as above, building both union-find structures with uf (e.g. WeightedUF::new)
+	public Percolation(int N, IntFunction<UF> uf) {
+		this.N = N;
+		this.topSlot = 0;
+		this.bottomSlot = N * N + 1;
+		this.open = new BitGrid(N); // create N-by-N grid, with all sites blocked
+		// top and bottom row sites are connected to the virtual slots as they are opened.
+		// key to use diff UF to avoid backwash: full never sees the bottom slot, so a site
+		// joined to the top only through the bottom row is not reported as full
+		this.Wu = uf.apply(N * N + 2);
+		this.full = uf.apply(N * N + 1);
+		this.fullCache = new BitGrid(N);
+	}
+
+	// restore a system from its open sites, their number and its two union-find structures
+	Percolation(int N, BitGrid open, int openSites, UF Wu, UF full) {
 		this.N = N;
-		this.open = new boolean[N * N];
 		this.topSlot = 0;
 		this.bottomSlot = N * N + 1;
-		this.open = new boolean[(N * N) + 2]; // create N-by-N grid, with all sites blocked
-		// connect top slot to open slots in top row
-		this.Wu = new WeightedUF(N * N + 2);
-		WeightedUF two = new WeightedUF(N * N + 2);
-		for (int i = 1; i <= N; i++) {
-			this.Wu.union(i, this.topSlot);
-		}
-		// connect bottom row open slots to bottom slot // key to use diff weightedUF to avoid backwash
-		for (int i = (N * N) - N; i <= N * N; i++) {
-			two.union(i, this.bottomSlot);
-		}
+		this.open = open;
+		this.Wu = Wu;
+		this.full = full;
+		this.fullCache = new BitGrid(N);
+		this.openSites = openSites;
 	}
 
 	// open site (row i, column j) if it is not already
 	public void open(int i, int j) {
-		this.open[i * this.N + j] = true;
+		if (this.open.get(i, j))
+			return;
+		this.open.set(i, j);
+		this.openSites++;
 		int current = i * this.N + j + 1;
+		// connect top row to top slot and bottom row to bottom slot
+		if (i == 0)
+			union(current, this.topSlot);
+		if (i == this.N - 1)
+			this.Wu.union(current, this.bottomSlot);
 		// union with all the open neighbors
 		// ex. Union(#(i,j),#(i+1,j)) if (i+1,j) is open
-		if (i + 1 < this.N && isOpen(i + 1, j))
-			this.Wu.union(current, current + this.N);
-		if (i - 1 >= 0 && isOpen(i - 1, j))
-			this.Wu.union(current, current - this.N);
-		if (j + 1 < this.N && isOpen(i, j + 1))
-			this.Wu.union(current, current + 1);
-		if (j - 1 >= 0 && isOpen(i, j - 1))
-			this.Wu.union(current, current - 1);
+		int neighbours = this.open.neighbours(i, j);
+		if ((neighbours & BitGrid.BELOW) != 0)
+			union(current, current + this.N);
+		if ((neighbours & BitGrid.ABOVE) != 0)
+			union(current, current - this.N);
+		if ((neighbours & BitGrid.RIGHT) != 0)
+			union(current, current + 1);
+		if ((neighbours & BitGrid.LEFT) != 0)
+			union(current, current - 1);
+	}
+
+	// union p and q in both structures
+	private void union(int p, int q) {
+		this.Wu.union(p, q);
+		this.full.union(p, q);
 	}
 
 	// is site (row i, column j) open?
 	public boolean isOpen(int i, int j) {
-		return this.open[i * this.N + j];
+		return this.open.get(i, j);
+	}
+
+	// number of open sites
+	public int numberOfOpenSites() {
+		return this.openSites;
 	}
 
 	// is site (row i, column j) full?
 	public boolean isFull(int i, int j) {
-		int current = i * this.N + j + 1;
-		if (this.Wu.connected(current, this.bottomSlot) && this.Wu.connected(current, this.topSlot))
-			this.Wu.union(this.topSlot, this.bottomSlot);
-		return (isOpen(i, j) && this.Wu.connected(current, this.topSlot));
+		int site = i * this.N + j;
+		if (this.fullCache.get(site))
+			return true;
+		if (!isOpen(i, j) || !this.full.connected(site + 1, this.topSlot))
+			return false;
+		this.fullCache.set(site);
+		return true;
 	}
 
 	// does the system percolate?
 	public boolean percolates() {
-		return this.Wu.connected(this.topSlot, this.bottomSlot);
-
+		if (!this.percolates)
+			this.percolates = this.Wu.connected(this.topSlot, this.bottomSlot);
+		return this.percolates;
 	}
 }
@@ -0,0 +1,132 @@
+package Percolation;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import stdlib.*;
+
+/* **************************************************************************
+ *  Compilation:  javac PercolationBenchmark.java
+ *  Execution:    java PercolationBenchmark
+ *  Dependencies: Percolation.java PercolationStats.java StdOut.java
+ *
+ *  Compares the UF backends of Percolation on N-by-N grids of increasing
+ *  size.  For each backend and N it reports
+ *
+ *    - open:       millions of open() calls per second, opening every site
+ *    - percolates: millions of percolates() calls per second on a grid
+ *                  that is just below the threshold (so nothing is cached)
+ *    - trial:      milliseconds per PercolationStats.openOrderTrial
+ *
+ *  Each measurement is repeated until it has run for at least MIN_TIME
+ *  seconds, after one untimed warmup round.  The quadratic backends are
+ *  only run up to the grid size where they still finish in reasonable time.
+ *
+ ****************************************************************************/
+
+public class PercolationBenchmark {
+	private static final double MIN_TIME = 0.5; // seconds per measurement
+	private static final int MIN_N = 32;
+	private static final int MAX_N = 1024;
+	private static final long SEED = 42;
+
+	private static class Backend {
+		final String name;
+		final IntFunction<UF> uf;
+		final int maxN;
+
+		Backend(String name, IntFunction<UF> uf, int maxN) {
+			this.name = name;
+			this.uf = uf;
+			this.maxN = maxN;
+		}
+	}
+
+	private static final Backend[] BACKENDS = {
+			new Backend("QuickFindUF", QuickFindUF::new, 64),
+			new Backend("QuickUnionUF", QuickUnionUF::new, 256),
+			new Backend("CompressionUF", CompressionUF::new, MAX_N),
+			new Backend("WeightedUF", WeightedUF::new, MAX_N),
+			new Backend("XWeightedCompressionUF", XWeightedCompressionUF::new, MAX_N),
+			new Backend("XWeightedHalvingUF", XWeightedHalvingUF::new, MAX_N),
+	};
+
+	// random permutation of the N*N sites
+	private static int[] order(int N, SplittableRandom rng) {
+		int[] order = new int[N*N];
+		for (int k = 0; k < order.length; k++) {
+			int r = rng.nextInt(k + 1);
+			order[k] = order[r];
+			order[r] = k;
+		}
+		return order;
+	}
+
+	// opens per second, opening every site of a fresh grid in a fixed random order
+	private static double openRate(int N, IntFunction<UF> uf) {
+		int[] order = order(N, new SplittableRandom(SEED));
+		long ops = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			Percolation perc = new Percolation(N, uf);
+			for (int site : order)
+				perc.open(site / N, site % N);
+			ops += order.length;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MIN_TIME * 1e9);
+		return ops / (elapsed / 1e9);
+	}
+
+	// percolates() calls per second on a grid opened up to just before it percolates
+	private static double percolatesRate(int N, IntFunction<UF> uf) {
+		int[] order = order(N, new SplittableRandom(SEED));
+		Percolation perc = new Percolation(N, uf);
+		int threshold = 0;
+		while (!perc.percolates()) {
+			perc.open(order[threshold] / N, order[threshold] % N);
+			threshold++;
+		}
+		perc = new Percolation(N, uf);
+		for (int k = 0; k < threshold - 1; k++)
+			perc.open(order[k] / N, order[k] % N);
+		long ops = 0;
+		int sink = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			for (int r = 0; r < 1000; r++)
+				if (perc.percolates()) sink++;
+			ops += 1000;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MIN_TIME * 1e9);
+		if (sink != 0) throw new Error("grid should not percolate");
+		return ops / (elapsed / 1e9);
+	}
+
+	// milliseconds per open-order trial
+	private static double trialTime(int N, IntFunction<UF> uf) {
+		SplittableRandom rng = new SplittableRandom(SEED);
+		long trials = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			PercolationStats.openOrderTrial(N, rng, uf);
+			trials++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MIN_TIME * 1e9);
+		return elapsed / 1e6 / trials;
+	}
+
+	public static void main(String[] args) {
+		StdOut.format("%-24s %6s %12s %16s %10s\n", "backend", "N", "open(M/s)", "percolates(M/s)", "trial(ms)");
+		for (Backend b : BACKENDS) {
+			for (int N = MIN_N; N <= Math.min(MAX_N, b.maxN); N += N) {
+				if (N == MIN_N) {
+					openRate(N, b.uf); // warmup
+					trialTime(N, b.uf);
+				}
+				StdOut.format("%-24s %6d %12.2f %16.2f %10.3f\n", b.name, N,
+						openRate(N, b.uf) / 1e6, percolatesRate(N, b.uf) / 1e6, trialTime(N, b.uf));
+			}
+		}
+	}
+}
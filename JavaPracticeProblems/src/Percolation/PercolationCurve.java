@@ -0,0 +1,105 @@
+package Percolation;
+
+/* **************************************************************************
+ *  Result of a PercolationSweep: for every number n of open sites, the
+ *  fraction of trials that span after n opens and the mean size of the
+ *  largest cluster after n opens.
+ *
+ *  Values at an open fraction p are obtained Newman-Ziff style, by
+ *  convolving the per-step values with the binomial distribution of the
+ *  number of open sites, so any p can be evaluated without new trials.
+ *
+ ****************************************************************************/
+
+public class PercolationCurve {
+	private final int sites;          // number of sites in the grid
+	private final int trials;         // number of trials in the sweep
+	private final int[] spanCount;    // spanCount[n] = # trials that first spanned when n sites were open
+	private final double[] spanning;  // spanning[n] = fraction of trials spanning with n sites open
+	private final double[] largest;   // largest[n] = mean largest cluster fraction with n sites open
+
+	PercolationCurve(int sites, int trials, int[] spanCount, long[] largestSum) {
+		this.sites = sites;
+		this.trials = trials;
+		this.spanCount = spanCount;
+		this.spanning = new double[sites + 1];
+		this.largest = new double[sites + 1];
+		int spanned = 0;
+		for (int n = 0; n <= sites; n++) {
+			spanned += spanCount[n];
+			spanning[n] = spanned / (double) trials;
+			largest[n] = largestSum[n] / ((double) trials * sites);
+		}
+	}
+
+	// number of sites in the grid
+	public int sites() {
+		return sites;
+	}
+
+	// number of trials that were combined into this curve
+	public int trials() {
+		return trials;
+	}
+
+	// number of trials that first spanned when exactly n sites were open
+	public int spanCount(int n) {
+		return spanCount[n];
+	}
+
+	// fraction of trials that span once n sites are open
+	public double spanningProbabilityAtStep(int n) {
+		return spanning[n];
+	}
+
+	// mean fraction of all sites in the largest cluster once n sites are open
+	public double largestClusterFractionAtStep(int n) {
+		return largest[n];
+	}
+
+	// probability that a grid with each site open with probability p spans
+	public double spanningProbability(double p) {
+		return convolve(spanning, p);
+	}
+
+	// expected fraction of all sites in the largest cluster when each site is open with probability p
+	public double largestClusterFraction(double p) {
+		return convolve(largest, p);
+	}
+
+	// sample mean of the percolation threshold, same estimate as PercolationStats.mean()
+	public double meanThreshold() {
+		double sum = 0;
+		for (int n = 0; n <= sites; n++)
+			sum += n * (double) spanCount[n];
+		return sum / ((double) trials * sites);
+	}
+
+	// sum over n of B(sites, n, p) * a[n].
+	// The binomial weights are built outward from the mode with the ratio
+	// B(n+1)/B(n) = (sites-n)/(n+1) * p/(1-p), and the tails are cut once
+	// they no longer change the sum.
+	private double convolve(double[] a, double p) {
+		if (p < 0 || p > 1) throw new IllegalArgumentException();
+		if (p == 0) return a[0];
+		if (p == 1) return a[sites];
+		final double EPSILON = 1e-16;
+		double odds = p / (1 - p);
+		int mode = (int) Math.min(sites, Math.floor((sites + 1) * p));
+		double weight = 1, total = 1, sum = a[mode];
+		for (int n = mode; n < sites; n++) {
+			weight *= (sites - n) / (n + 1.0) * odds;
+			if (weight < EPSILON * total) break;
+			total += weight;
+			sum += weight * a[n + 1];
+		}
+		weight = 1;
+		for (int n = mode; n > 0; n--) {
+			weight *= n / (sites - n + 1.0) / odds;
+			if (weight < EPSILON * total) break;
+			total += weight;
+			sum += weight * a[n - 1];
+		}
+		return sum / total;
+	}
+}
@@ -0,0 +1,91 @@
+package Percolation;
+import java.awt.Color;
+import java.awt.Font;
+import java.util.Arrays;
+import stdlib.*;
+
+/* **************************************************************************
+ *  Incremental drawing of an N-by-N percolation system.
+ *
+ *  PercolationVisualizer.draw repaints all N^2 sites on every frame.  A
+ *  renderer instead remembers what it has already painted and, on each
+ *  frame, repaints only the sites reported through opened() plus the
+ *  sites that became full because of them.  Those are exactly the open
+ *  sites reachable from a newly opened full site through sites that are
+ *  not yet painted full, so a flood fill from each such site finds them,
+ *  and every site is painted full at most once over the whole animation.
+ *
+ *  Drawing goes to StdDraw's offscreen buffer, which keeps its contents
+ *  between frames; call StdDraw.show(t) to copy it to the screen.
+ *
+ ****************************************************************************/
+
+public class PercolationRenderer {
+	private final Percolation perc;
+	private final int N;
+	private final BitGrid paintedFull;   // sites already painted light blue
+	private int[] dirty = new int[16];   // sites opened since the last frame
+	private int numDirty;
+	private int[] stack = new int[16];   // flood fill work list
+
+	// paint the whole system once; later frames only repaint what changed
+	public PercolationRenderer(Percolation perc, int N) {
+		this.perc = perc;
+		this.N = N;
+		this.paintedFull = new BitGrid(N);
+		PercolationVisualizer.draw(perc, N);
+		for (int row = 0; row < N; row++)
+			for (int col = 0; col < N; col++)
+				if (perc.isFull(row, col)) paintedFull.set(row, col);
+	}
+
+	// site (i, j) was opened (or may have been) since the last frame
+	public void opened(int i, int j) {
+		if (numDirty == dirty.length) dirty = Arrays.copyOf(dirty, 2 * numDirty);
+		dirty[numDirty++] = i * N + j;
+	}
+
+	// repaint the sites that changed since the last frame, and the status text
+	public void draw() {
+		for (int k = 0; k < numDirty; k++) {
+			int site = dirty[k];
+			int i = site / N, j = site % N;
+			if (paintedFull.get(site) || !perc.isOpen(i, j)) continue;
+			if (perc.isFull(i, j)) fill(site);
+			else paint(i, j, StdDraw.WHITE);
+		}
+		numDirty = 0;
+
+		// write status text over the previous one
+		StdDraw.setPenColor(StdDraw.WHITE);
+		StdDraw.filledRectangle(N/2.0, -N*.025, N/2.0, N*.025);
+		StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 12));
+		StdDraw.setPenColor(StdDraw.BLACK);
+		StdDraw.text(.25*N, -N*.025, perc.numberOfOpenSites() + " open sites");
+		if (perc.percolates()) StdDraw.text(.75*N, -N*.025, "percolates");
+		else                   StdDraw.text(.75*N, -N*.025, "does not percolate");
+	}
+
+	// paint the full site and every open site connected to it that is not painted full yet
+	private void fill(int site) {
+		int top = 0;
+		stack[top++] = site;
+		paintedFull.set(site);
+		while (top > 0) {
+			int s = stack[--top];
+			int i = s / N, j = s % N;
+			paint(i, j, StdDraw.BOOK_LIGHT_BLUE);
+			int neighbours = perc.open.neighbours(i, j);
+			if (stack.length < top + 4) stack = Arrays.copyOf(stack, 2 * stack.length);
+			if ((neighbours & BitGrid.BELOW) != 0 && !paintedFull.get(s + N)) { paintedFull.set(s + N); stack[top++] = s + N; }
+			if ((neighbours & BitGrid.ABOVE) != 0 && !paintedFull.get(s - N)) { paintedFull.set(s - N); stack[top++] = s - N; }
+			if ((neighbours & BitGrid.RIGHT) != 0 && !paintedFull.get(s + 1)) { paintedFull.set(s + 1); stack[top++] = s + 1; }
+			if ((neighbours & BitGrid.LEFT)  != 0 && !paintedFull.get(s - 1)) { paintedFull.set(s - 1); stack[top++] = s - 1; }
+		}
+	}
+
+	private void paint(int i, int j, Color color) {
+		StdDraw.setPenColor(color);
+		StdDraw.filledSquare(j + 0.5, N - i - 0.5, 0.45);
+	}
+}
@@ -0,0 +1,232 @@
+package Percolation;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.zip.CRC32;
+import stdlib.*;
+
+/* **************************************************************************
+ *  Compilation:  javac PercolationSnapshot.java
+ *  Execution:    java PercolationSnapshot input.txt output.perc
+ *                java PercolationSnapshot [N]
+ *  Dependencies: Percolation.java BitGrid.java MappedUF.java CompactUF.java In.java
+ *
+ *  Binary snapshots of a Percolation system, so a grid can be restored
+ *  without replaying its opens.  All values are big-endian:
+ *
+ *    int     MAGIC, VERSION, N, number of bitset words W, open sites,
+ *            components of each union-find (percolates(), then isFull()), 0
+ *    long    W words of the open-site BitGrid
+ *    int     N*N+2 entries of the percolates() union-find
+ *    int     N*N+1 entries of the isFull() union-find
+ *
+ *  The union-find entries are in CompactUF's layout (a non-negative entry
+ *  is the parent, a root stores ~rank) with every tree flattened to depth
+ *  one, whatever backend wrote them.  read() maps them as MappedUF
+ *  structures, used in place, so restoring a grid copies only the W bitset
+ *  words (12 MB at 10k x 10k) and does no work per union-find entry.  It
+ *  checks the header and the file length before using anything, but not
+ *  the entries themselves.  The mappings are copy-on-write, so opening
+ *  more sites never changes the file, but the file must be writable.
+ *
+ *  With two file arguments, converts a text file of opens (as read by
+ *  PercolationVisualizer) into a snapshot.  Otherwise, times replaying
+ *  against loading for a random N-by-N grid.
+ *
+ ****************************************************************************/
+
+public class PercolationSnapshot {
+	private static final int MAGIC = 0x50455243;   // "PERC"
+	private static final int VERSION = 2;
+	private static final int HEADER = 32;          // bytes, so the longs are aligned
+
+	// don't instantiate
+	private PercolationSnapshot() { }
+
+	// write perc to filename
+	public static void write(Percolation perc, String filename) throws IOException {
+		int N = perc.N;
+		long[] words = perc.open.words();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(N);
+			out.writeInt(words.length);
+			out.writeInt(perc.numberOfOpenSites());
+			out.writeInt(perc.Wu.count());
+			out.writeInt(perc.full.count());
+			out.writeInt(0);
+			for (long w : words)
+				out.writeLong(w);
+			writeFlattened(perc.Wu, N * N + 2, out);
+			writeFlattened(perc.full, N * N + 1, out);
+		}
+	}
+
+	// the n entries of uf as depth-one CompactUF trees: each non-root points
+	// at its root, and a root stores rank 1 if anything points at it, else 0
+	private static void writeFlattened(UF uf, int n, DataOutputStream out) throws IOException {
+		BitSet hasChild = new BitSet(n);
+		for (int i = 0; i < n; i++) {
+			int root = uf.find(i);
+			if (root != i) hasChild.set(root);
+		}
+		for (int i = 0; i < n; i++) {
+			int root = uf.find(i);
+			out.writeInt(root != i ? root : hasChild.get(i) ? ~1 : ~0);
+		}
+	}
+
+	// read a Percolation written by write
+	public static Percolation read(String filename) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw");
+				FileChannel channel = file.getChannel()) {
+			long length = channel.size();
+			if (length < HEADER) throw new IOException(filename + " is too short for a percolation snapshot");
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			while (header.hasRemaining())
+				if (channel.read(header, header.position()) < 0) throw new IOException(filename + ": truncated header");
+			header.flip();
+			if (header.getInt() != MAGIC) throw new IOException(filename + " is not a percolation snapshot");
+			if (header.getInt() != VERSION) throw new IOException(filename + ": unsupported snapshot version");
+			int N = header.getInt();
+			int W = header.getInt();
+			int openSites = header.getInt();
+			int topCount = header.getInt();
+			int fullCount = header.getInt();
+
+			if (N <= 0 || (long) N * N + 2 > Integer.MAX_VALUE) throw new IOException(filename + ": bad grid size " + N);
+			int slots = N * N + 2;
+			if (W != BitGrid.wordsFor(N)) throw new IOException(filename + ": " + W + " bitset words for N=" + N);
+			long expected = HEADER + 8L * W + 4L * slots + 4L * (slots - 1);
+			if (length != expected) throw new IOException(filename + " has " + length + " bytes, expected " + expected);
+			if (openSites < 0 || openSites > N * N || topCount < 1 || topCount > slots || fullCount < 1 || fullCount > slots - 1)
+				throw new IOException(filename + ": bad counts in header");
+
+			long position = HEADER;
+			BitGrid open = new BitGrid(N, channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * W).asLongBuffer());
+			position += 8L * W;
+			UF top = new MappedUF(channel, position, slots, topCount);
+			position += 4L * slots;
+			UF full = new MappedUF(channel, position, slots - 1, fullCount);
+			return new Percolation(N, open, openSites, top, full);
+		}
+	}
+
+	// a corrupt or truncated snapshot must be rejected with an IOException
+	private static void checkCorrupt(String filename) throws IOException {
+		long length = new File(filename).length();
+		// { header int, corrupt value }: N, W, open sites, percolates() components
+		int[][] headers = { { 2, -1 }, { 2, 1 << 20 }, { 2, 46341 }, { 3, 7 }, { 4, -5 }, { 5, 0 } };
+		for (int[] h : headers) {
+			File tmp = File.createTempFile("perc-corrupt-", ".perc");
+			tmp.deleteOnExit();
+			Files.copy(new File(filename).toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			try (RandomAccessFile f = new RandomAccessFile(tmp, "rw")) {
+				f.seek(4 * h[0]);
+				f.writeInt(h[1]);
+			}
+			expectIOException(tmp.getPath());
+		}
+		File tmp = File.createTempFile("perc-truncated-", ".perc");
+		tmp.deleteOnExit();
+		Files.copy(new File(filename).toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		try (RandomAccessFile f = new RandomAccessFile(tmp, "rw")) {
+			f.setLength(length - 4);
+		}
+		expectIOException(tmp.getPath());
+		try (RandomAccessFile f = new RandomAccessFile(tmp, "rw")) {
+			f.setLength(10);
+		}
+		expectIOException(tmp.getPath());
+	}
+
+	// CRC-32 of the bytes of filename
+	private static long crc(String filename) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[1 << 16];
+		try (InputStream in = new FileInputStream(filename)) {
+			for (int n; (n = in.read(buffer)) > 0; )
+				crc.update(buffer, 0, n);
+		}
+		return crc.getValue();
+	}
+
+	private static void expectIOException(String filename) {
+		try {
+			read(filename);
+			throw new Error("Expected " + filename + " to be rejected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 2) {
+			In in = new In(args[0]);
+			int N = in.readInt();
+			Percolation perc = new Percolation(N);
+			while (!in.isEmpty())
+				perc.open(in.readInt(), in.readInt());
+			write(perc, args[1]);
+			return;
+		}
+
+		// CompactUF (4 bytes per slot) so a 10k x 10k grid fits in the heap
+		int N = 2000;
+		if (args.length == 1) N = Integer.parseInt(args[0]);
+		SplittableRandom rng = new SplittableRandom(42);
+		Stopwatch sw = new Stopwatch();
+		Percolation perc = new Percolation(N, CompactUF::new);
+		for (int i = 0; i < N; i++)
+			for (int j = 0; j < N; j++)
+				if (rng.nextDouble() < 0.6) perc.open(i, j);
+		double replay = sw.elapsedTime();
+		int opens = perc.numberOfOpenSites();
+
+		File tmp = File.createTempFile("perc-snapshot-", ".perc");
+		tmp.deleteOnExit();
+		String filename = tmp.getPath();
+		write(perc, filename);
+		long written = crc(filename);
+		sw = new Stopwatch();
+		Percolation copy = read(filename);
+		double load = sw.elapsedTime();
+
+		for (int i = 0; i < N; i++)
+			for (int j = 0; j < N; j++)
+				if (copy.isOpen(i, j) != perc.isOpen(i, j) || copy.isFull(i, j) != perc.isFull(i, j))
+					throw new Error("site (" + i + ", " + j + ") differs");
+		if (copy.percolates() != perc.percolates()) throw new Error("percolates() differs");
+		if (perc.numberOfOpenSites() != opens || copy.numberOfOpenSites() != opens || opens != perc.open.count())
+			throw new Error("Expected " + opens + " open sites, got " + copy.numberOfOpenSites());
+
+		// the restored system keeps working, and reopening an open site does not count twice
+		for (int i = 0; i < N; i++) {
+			perc.open(i, N / 2);
+			copy.open(i, N / 2);
+		}
+		if (!copy.percolates() || copy.numberOfOpenSites() != perc.numberOfOpenSites())
+			throw new Error("opening a column of the restored system went wrong");
+		for (int i = 0; i < N; i++)
+			for (int j = 0; j < N; j++)
+				if (copy.isFull(i, j) != perc.isFull(i, j))
+					throw new Error("site (" + i + ", " + j + ") differs after more opens");
+		if (crc(filename) != written)
+			throw new Error("opens after loading reached the file");
+
+		checkCorrupt(filename);
+		StdOut.format("N=%d opens=%d replay=%5.3f load=%5.3f\n", N, opens, replay, load);
+	}
+}
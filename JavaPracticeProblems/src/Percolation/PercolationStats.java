@@ -1,10 +1,26 @@
 package Percolation;
-import algs15.perc.Percolation;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
 import stdlib.*;
 
 public class PercolationStats {
+	// fewest trials an adaptive run starts with, so the first variance estimate is sound
+	private static final int MIN_TRIALS = 30;
+
 	double[] results;
 
+	// how each trial chooses the next site to open
+	public enum TrialMode {
+		// draw random (i, j) pairs, skipping sites that are already open
+		RANDOM_SITES,
+		// open the sites of a random permutation in order, one pass per trial
+		OPEN_ORDER
+	}
+
 	// perform T independent computational experiments on an N-by-N grid
 	public PercolationStats(int N, int T) {
 		if (N<=0 || T<=0) throw new IllegalArgumentException();
@@ -24,6 +40,139 @@ public class PercolationStats {
 			results[t] = opened / (double) (N*N);
 		}
 	}
+
+	// perform T independent experiments on an N-by-N grid in parallel on pool;
+	// the results depend only on seed, not on the pool's parallelism
+	public PercolationStats(int N, int T, long seed, ForkJoinPool pool) {
+		this(N, T, seed, pool, TrialMode.RANDOM_SITES);
+	}
+
+	// as above, choosing sites to open according to mode
+	public PercolationStats(int N, int T, long seed, ForkJoinPool pool, TrialMode mode) {
+		this(N, T, seed, pool, mode, XWeightedCompressionUF::new);
+	}
+
+	// as above, with each Percolation built on union-find structures from uf
+	public PercolationStats(int N, int T, long seed, ForkJoinPool pool, TrialMode mode, IntFunction<UF> uf) {
+		if (N<=0 || T<=0) throw new IllegalArgumentException();
+		if (mode == TrialMode.OPEN_ORDER)
+			this.results = ParallelTrials.run(pool, T, seed, rng -> openOrderTrial(N, rng, uf));
+		else
+			this.results = ParallelTrials.run(pool, T, seed, rng -> trial(N, rng, uf));
+	}
+
+	// as above with XWeightedCompressionUF, checkpointing every finished trial to the
+	// TrialLog in checkpoint.  If that log already exists, only the trials missing
+	// from it are run, and the results are the same as for an uninterrupted run.
+	public PercolationStats(int N, int T, long seed, ForkJoinPool pool, TrialMode mode, String checkpoint) throws IOException {
+		this(N, T, seed, pool, mode, checkpoint, XWeightedCompressionUF::new);
+	}
+
+	// as above, with each Percolation built on union-find structures from uf
+	public PercolationStats(int N, int T, long seed, ForkJoinPool pool, TrialMode mode, String checkpoint, IntFunction<UF> uf) throws IOException {
+		if (N<=0 || T<=0) throw new IllegalArgumentException();
+		try (TrialLog log = new TrialLog(checkpoint, T, seed, "PercolationStats N=" + N + " " + mode)) {
+			if (mode == TrialMode.OPEN_ORDER)
+				this.results = ParallelTrials.run(pool, log, rng -> openOrderTrial(N, rng, uf));
+			else
+				this.results = ParallelTrials.run(pool, log, rng -> trial(N, rng, uf));
+		}
+	}
+
+	// the statistics of the given trial results
+	PercolationStats(double[] results) {
+		if (results.length == 0) throw new IllegalArgumentException();
+		this.results = results;
+	}
+
+	// run trials on an N-by-N grid in parallel batches on pool, adding each
+	// finished batch to running statistics on the calling thread, until the 95%
+	// confidence interval is within epsilon of the mean or seconds have passed.  Each batch is sized from the current variance to
+	// just reach epsilon, but at most doubles the trial count and is cut to the
+	// time left.  The results are a prefix of those of new PercolationStats(N, T,
+	// seed, pool, mode), so they depend only on seed and on when the run stopped.
+	public static PercolationStats adaptive(int N, double epsilon, double seconds, long seed, ForkJoinPool pool, TrialMode mode) {
+		return adaptive(N, epsilon, seconds, seed, pool, mode, XWeightedCompressionUF::new);
+	}
+
+	// as above, with each Percolation built on union-find structures from uf
+	public static PercolationStats adaptive(int N, double epsilon, double seconds, long seed, ForkJoinPool pool, TrialMode mode, IntFunction<UF> uf) {
+		if (N<=0 || !(epsilon > 0) || !(seconds > 0)) throw new IllegalArgumentException();
+		ParallelTrials.Trial trial = mode == TrialMode.OPEN_ORDER ? rng -> openOrderTrial(N, rng, uf) : rng -> trial(N, rng, uf);
+		int workers = pool.getParallelism();
+		SplittableRandom root = new SplittableRandom(seed);
+		RunningStats stats = new RunningStats();
+		double[] results = new double[0];
+		Stopwatch timer = new Stopwatch();
+		int batch = Math.max(MIN_TRIALS, workers);
+		while (true) {
+			double[] more = ParallelTrials.run(pool, ParallelTrials.streams(root, batch), trial);
+			for (double x : more)
+				stats.add(x);
+			int n = results.length;
+			results = Arrays.copyOf(results, n + more.length);
+			System.arraycopy(more, 0, results, n, more.length);
+
+			double elapsed = timer.elapsedTime();
+			if (stats.halfWidth() <= epsilon || elapsed >= seconds) break;
+			double needed = Math.pow(1.96 * stats.stddev() / epsilon, 2) - results.length;
+			double affordable = (seconds - elapsed) / (elapsed / results.length);
+			batch = (int) Math.max(workers, Math.min(Math.min(needed, affordable), results.length));
+		}
+		return new PercolationStats(results);
+	}
+
+	// open random sites of an N-by-N grid until it percolates, drawing from rng;
+	// return the fraction of sites opened
+	public static double trial(int N, SplittableRandom rng) {
+		return trial(N, rng, XWeightedCompressionUF::new);
+	}
+
+	// as above, on a Percolation built with uf
+	public static double trial(int N, SplittableRandom rng, IntFunction<UF> uf) {
+		int opened = 0;
+		Percolation perc = new Percolation(N, uf);
+		while (!perc.percolates()) {
+			int i = rng.nextInt(N);
+			int j = rng.nextInt(N);
+			if (!perc.isOpen(i, j)) {
+				opened ++;
+				perc.open(i, j);
+			}
+		}
+		return opened / (double) (N*N);
+	}
+
+	// open the sites of an N-by-N grid in a uniformly random order until it percolates;
+	// return the fraction of sites opened.
+	// The permutation is built lazily (Fisher-Yates), so every draw opens a new site
+	// and no work is spent shuffling the sites after the threshold.
+	public static double openOrderTrial(int N, SplittableRandom rng) {
+		return openOrderTrial(N, rng, XWeightedCompressionUF::new);
+	}
+
+	// as above, on a Percolation built with uf
+	public static double openOrderTrial(int N, SplittableRandom rng, IntFunction<UF> uf) {
+		int sites = N*N;
+		int[] order = new int[sites];
+		for (int k=0; k<sites; k++)
+			order[k] = k;
+		Percolation perc = new Percolation(N, uf);
+		int opened = 0;
+		while (!perc.percolates()) {
+			int r = opened + rng.nextInt(sites - opened);
+			int site = order[r];
+			order[r] = order[opened];
+			order[opened] = site;
+			perc.open(site / N, site % N);
+			opened ++;
+		}
+		return opened / (double) sites;
+	}
+	// number of trials run
+	public int trials() {
+		return results.length;
+	}
 	// sample mean of percolation threshold
 	public double mean() {
 		return StdStats.mean (results);
@@ -45,20 +194,36 @@ public class PercolationStats {
 						/ Math.sqrt(results.length));
 	}
 
-	public static void main(String[] args) {
+	// with a directory argument, checkpoint each N to a trial log there, so
+	// that running again with the same directory resumes an interrupted sweep
+	public static void main(String[] args) throws IOException {
 		final int MIN = 16;
 		final int MAX = 200000;
 		final int T = 200;
+		final boolean PARALLEL = true;
+		final TrialMode MODE = TrialMode.OPEN_ORDER;
+		final long SEED = 42;
+		final boolean ADAPTIVE = false;   // run until the interval is +-EPSILON instead of T trials
+		final double EPSILON = 0.001;
+		final double BUDGET = 10;         // seconds per N for adaptive runs
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 		double time = 0;
 		double prev = 0;
 		for (int NSquare=MIN; NSquare<=MAX; NSquare+=NSquare) {
 			int N = (int) Math.floor (Math.sqrt (NSquare));
 			Stopwatch timer = new Stopwatch();
-			PercolationStats stats = new PercolationStats(N,T);
+			PercolationStats stats;
+			if (ADAPTIVE)
+				stats = adaptive(N,EPSILON,BUDGET,SEED,pool,MODE);
+			else if (args.length == 1)
+				stats = new PercolationStats(N,T,SEED,pool,MODE, new File(args[0], "stats-" + N + ".log").getPath());
+			else
+				stats = PARALLEL ? new PercolationStats(N,T,SEED,pool,MODE) : new PercolationStats(N,T);
 			time = timer.elapsedTime ();
 			StdOut.format ("T=%d N=%3d N^2=%6d mean=%5.3f confidence=[%5.3f,%5.3f] time=%5.2f ratio=%3.2f\n",
-					T, N, N*N, stats.mean(), stats.confidenceLow(), stats.confidenceHigh(), time, time/prev);
+					stats.trials(), N, N*N, stats.mean(), stats.confidenceLow(), stats.confidenceHigh(), time, time/prev);
 			prev = time;
 		}
+		pool.shutdown();
 	}
 }
@@ -0,0 +1,140 @@
+package Percolation;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import stdlib.*;
+
+/* **************************************************************************
+ *  Newman-Ziff sweep over an N-by-N grid.
+ *
+ *  Each trial opens all N^2 sites once, in a random order, and records
+ *  the step at which the grid first percolates and the size of the largest
+ *  cluster after every step.  The trials are summed into a PercolationCurve
+ *  that can be evaluated at any open fraction p.
+ *
+ *  Trials use the same per-trial random streams as ParallelTrials, so a
+ *  sweep is reproducible for a given seed.
+ *
+ ****************************************************************************/
+
+public class PercolationSweep {
+	// don't instantiate
+	private PercolationSweep() { }
+
+	// run T trials on an N-by-N grid in parallel on pool
+	public static PercolationCurve run(int N, int T, long seed, ForkJoinPool pool) {
+		if (N<=0 || T<=0) throw new IllegalArgumentException();
+		SplittableRandom[] rngs = ParallelTrials.streams(T, seed);
+		int grain = Math.max(1, T / (4 * pool.getParallelism()));
+		Sums sums = pool.invoke(new SweepTask(N, rngs, 0, T, grain));
+		return new PercolationCurve(N*N, T, sums.spanCount, sums.largestSum);
+	}
+
+	// open every site of an N-by-N grid in random order, adding the step at which
+	// the grid first percolates to spanCount and the largest cluster size after
+	// each step n to largestSum[n]
+	static void trial(int N, SplittableRandom rng, int[] spanCount, long[] largestSum) {
+		int sites = N*N;
+		int[] order = new int[sites];
+		for (int k=0; k<sites; k++)
+			order[k] = k;
+		Percolation perc = new Percolation(N);
+		UF clusters = new XWeightedCompressionUF(sites); // no virtual slots, so roots give real cluster sizes
+		int[] size = new int[sites];                     // size[r] = size of cluster with root r
+		boolean spanned = false;
+		int largest = 0;
+		for (int opened = 0; opened < sites; opened++) {
+			int r = opened + rng.nextInt(sites - opened);
+			int site = order[r];
+			order[r] = order[opened];
+			order[opened] = site;
+
+			int i = site / N, j = site % N;
+			perc.open(i, j);
+			size[site] = 1;
+			if (i + 1 < N && perc.isOpen(i + 1, j)) merge(clusters, size, site, site + N);
+			if (i - 1 >= 0 && perc.isOpen(i - 1, j)) merge(clusters, size, site, site - N);
+			if (j + 1 < N && perc.isOpen(i, j + 1)) merge(clusters, size, site, site + 1);
+			if (j - 1 >= 0 && perc.isOpen(i, j - 1)) merge(clusters, size, site, site - 1);
+			largest = Math.max(largest, size[clusters.find(site)]);
+			largestSum[opened + 1] += largest;
+
+			if (!spanned && perc.percolates()) {
+				spanCount[opened + 1]++;
+				spanned = true;
+			}
+		}
+	}
+
+	// union the clusters of p and q, keeping the size of the merged cluster at its root
+	private static void merge(UF uf, int[] size, int p, int q) {
+		int rp = uf.find(p);
+		int rq = uf.find(q);
+		if (rp == rq) return;
+		int merged = size[rp] + size[rq];
+		uf.union(rp, rq);
+		size[uf.find(rp)] = merged;
+	}
+
+	// per-step totals over a range of trials
+	private static class Sums {
+		final int[] spanCount;
+		final long[] largestSum;
+
+		Sums(int sites) {
+			this.spanCount = new int[sites + 1];
+			this.largestSum = new long[sites + 1];
+		}
+
+		Sums add(Sums that) {
+			for (int n = 0; n < spanCount.length; n++) {
+				spanCount[n] += that.spanCount[n];
+				largestSum[n] += that.largestSum[n];
+			}
+			return this;
+		}
+	}
+
+	// runs trials [lo, hi), splitting the range in half until it is at most grain trials
+	private static class SweepTask extends RecursiveTask<Sums> {
+		private static final long serialVersionUID = 1L;
+		private final int N;
+		private final SplittableRandom[] rngs;
+		private final int lo, hi, grain;
+
+		SweepTask(int N, SplittableRandom[] rngs, int lo, int hi, int grain) {
+			this.N = N;
+			this.rngs = rngs;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		protected Sums compute() {
+			if (hi - lo <= grain) {
+				Sums sums = new Sums(N*N);
+				for (int t = lo; t < hi; t++)
+					trial(N, rngs[t], sums.spanCount, sums.largestSum);
+				return sums;
+			}
+			int mid = (lo + hi) >>> 1;
+			SweepTask left = new SweepTask(N, rngs, lo, mid, grain);
+			left.fork();
+			Sums right = new SweepTask(N, rngs, mid, hi, grain).compute();
+			return left.join().add(right);
+		}
+	}
+
+	public static void main(String[] args) {
+		final int N = 64;
+		final int T = 200;
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		Stopwatch timer = new Stopwatch();
+		PercolationCurve curve = run(N, T, 42, pool);
+		StdOut.format("T=%d N=%d mean=%5.3f time=%5.2f\n", T, N, curve.meanThreshold(), timer.elapsedTime());
+		for (double p = 0.50; p <= 0.70; p += 0.01)
+			StdOut.format("p=%4.2f spanning=%5.3f largest=%5.3f\n",
+					p, curve.spanningProbability(p), curve.largestClusterFraction(p));
+		pool.shutdown();
+	}
+}
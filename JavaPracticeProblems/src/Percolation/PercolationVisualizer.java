@@ -1,8 +1,7 @@
 package Percolation;
 import stdlib.*;
 import java.awt.Font;
-
-import algs15.perc.Percolation;
+import java.io.IOException;
 
 /* **************************************************************************
  *  Compilation:  javac PercolationVisualizer.java
@@ -16,6 +15,9 @@ import algs15.perc.Percolation;
  *    - Creates an N-by-N grid of sites (intially all blocked)
  *    - Reads in a sequence of sites (row i, column j) to open.
  *
+ *  A file ending in .perc is instead a binary snapshot written by
+ *  PercolationSnapshot; the final system is restored and drawn at once.
+ *
  *  After each site is opened, it draws full sites in light blue,
  *  open sites (that aren't full) in white, and blocked sites in black,
  *  with with site (0, 0) in the upper left-hand corner.
@@ -24,6 +26,8 @@ import algs15.perc.Percolation;
 public class PercolationVisualizer {
 	// delay in miliseconds (controls animation speed)
 	private static int delay = 100;
+	// repaint only the sites that changed (see PercolationRenderer) instead of the whole grid
+	private static boolean incremental = true;
 
 	// draw N-by-N percolation system
 	public static void draw(Percolation perc, int N) {
@@ -33,20 +37,16 @@ public class PercolationVisualizer {
 		StdDraw.setYscale(0, N);
 		StdDraw.filledSquare(N/2.0, N/2.0, N/2.0);
 
-		// draw N-by-N grid
-		int opened = 0;
+		// draw N-by-N grid; blocked sites are a single bit test
+		int opened = perc.numberOfOpenSites();
 		for (int row = 0; row < N; row++) {
 			for (int col = 0; col < N; col++) {
-				if (perc.isFull(row, col)) {
+				if (!perc.isOpen(row, col))
+					StdDraw.setPenColor(StdDraw.BLACK);
+				else if (perc.isFull(row, col))
 					StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
-					opened++;
-				}
-				else if (perc.isOpen(row, col)) {
-					StdDraw.setPenColor(StdDraw.WHITE);
-					opened++;
-				}
 				else
-					StdDraw.setPenColor(StdDraw.BLACK);
+					StdDraw.setPenColor(StdDraw.WHITE);
 				StdDraw.filledSquare(col + 0.5, N - row - 0.5, 0.45);
 			}
 		}
@@ -60,6 +60,15 @@ public class PercolationVisualizer {
 
 	}
 
+	// draw the system after site (i, j) was opened, incrementally or from scratch
+	static void redraw(PercolationRenderer renderer, Percolation perc, int N, int i, int j) {
+		if (incremental) {
+			renderer.opened(i, j);
+			renderer.draw();
+		}
+		else PercolationVisualizer.draw(perc, N);
+	}
+
 	// file input
 	private static void simulateFromFile(String filename) {
 		In in = new In(filename);
@@ -70,17 +79,30 @@ public class PercolationVisualizer {
 		StdDraw.show(0);
 
 		// repeatedly read in sites to open and draw resulting system
-		PercolationVisualizer.draw(perc, N);
+		PercolationRenderer renderer = new PercolationRenderer(perc, N);
 		StdDraw.show(delay);
 		while (!in.isEmpty()) {
 			int i = in.readInt();
 			int j = in.readInt();
 			perc.open(i, j);
-			PercolationVisualizer.draw(perc, N);
+			redraw(renderer, perc, N, i, j);
 			StdDraw.show(delay);
 //			if (i==0 && !perc.isFull (i, j)) StdOut.format("yikes: %d %d\n", i, j);
 		}
-		PercolationVisualizer.draw(perc, N);
+		StdDraw.show(delay);
+	}
+
+	// binary snapshot written by PercolationSnapshot: restore and draw the final system
+	private static void drawSnapshot(String filename) {
+		Percolation perc;
+		try {
+			perc = PercolationSnapshot.read(filename);
+		}
+		catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		StdDraw.show(0);
+		PercolationVisualizer.draw(perc, perc.N);
 		StdDraw.show(delay);
 	}
 
@@ -93,14 +115,14 @@ public class PercolationVisualizer {
 		StdDraw.show(0);
 
 		// repeatedly open sites until system percolates and draw resulting system
-		PercolationVisualizer.draw(perc, N);
+		PercolationRenderer renderer = new PercolationRenderer(perc, N);
 		StdDraw.show(delay);
 		while (!perc.percolates()) {
 			int i = StdRandom.uniform(N);
 			int j = StdRandom.uniform(N);
 			if (!perc.isOpen(i, j)) {
 				perc.open(i, j);
-				PercolationVisualizer.draw(perc, N);
+				redraw(renderer, perc, N, i, j);
 				StdDraw.show(delay);
 //				if (i==0 && !perc.isFull (i, j)) StdOut.format("yikes: %d %d\n", i, j);
 			}
@@ -138,7 +160,8 @@ public class PercolationVisualizer {
 			}
 			catch (NumberFormatException e) {
 				String filename = args[0];
-				simulateFromFile(filename);
+				if (filename.endsWith(".perc")) drawSnapshot(filename);
+				else simulateFromFile(filename);
 			}
 		}
 	}
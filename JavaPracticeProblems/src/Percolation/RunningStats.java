@@ -0,0 +1,50 @@
+package Percolation;
+
+/* **************************************************************************
+ *  Mean and variance of a stream of values in O(1) memory, by Welford's
+ *  method: each value moves the mean by its share of the difference, and
+ *  adds the product of its distances from the old and new means to the
+ *  sum of squares.  Unlike summing x and x^2, nothing cancels
+ *  catastrophically when the values sit close to their mean, as the
+ *  percolation thresholds of a large grid do.
+ *
+ ****************************************************************************/
+
+public class RunningStats {
+	private long n;       // number of values
+	private double mean;  // mean of the values
+	private double m2;    // sum of squared distances from the mean
+
+	// add the value x
+	public void add(double x) {
+		n++;
+		double delta = x - mean;
+		mean += delta / n;
+		m2 += delta * (x - mean);
+	}
+
+	// number of values
+	public long count() {
+		return n;
+	}
+
+	// sample mean, NaN if there are no values
+	public double mean() {
+		return n == 0 ? Double.NaN : mean;
+	}
+
+	// sample variance, NaN if there are fewer than two values
+	public double var() {
+		return n < 2 ? Double.NaN : m2 / (n - 1);
+	}
+
+	// sample standard deviation
+	public double stddev() {
+		return Math.sqrt(var());
+	}
+
+	// half-width of the 95% confidence interval for the mean
+	public double halfWidth() {
+		return 1.96 * stddev() / Math.sqrt(n);
+	}
+}
@@ -0,0 +1,184 @@
+package Percolation;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import stdlib.*;
+
+/* **************************************************************************
+ *  Compilation:  javac StreamingPercolation.java
+ *  Execution:    java StreamingPercolation [file]
+ *  Dependencies: UF.java XWeightedCompressionUF.java Percolation.java In.java
+ *
+ *  Percolation of an N-wide strip whose rows arrive one at a time, in the
+ *  style of Hoshen-Kopelman labelling.  Only the last row is kept: each
+ *  of its open sites carries the label of its cluster, and each label
+ *  records whether the cluster reaches the top row.
+ *
+ *  A new row is joined to the last one with a UF over 2N slots (the N
+ *  old labels, then the N new sites).  The new row is then relabelled by
+ *  root, and a root reaches the top if any old label merged into it did.
+ *  The strip percolates when some open site of the last row reaches the
+ *  top, so memory is O(N) however many rows go by.
+ *
+ *  The file format is N followed by any number of rows of N 0/1 values.
+ *  Without a file, a 1000-wide strip of 100000 random rows is streamed.
+ *
+ ****************************************************************************/
+
+public class StreamingPercolation {
+	private final int N;                 // width of a row
+	private final IntFunction<UF> uf;    // builds the frontier union-find
+	private int[] label;                 // label[j] = cluster of site j in the last row, or -1 if blocked
+	private boolean[] top;               // top[l] = cluster l reaches the top row
+	private boolean alive;               // some site of the last row reaches the top row
+	private long rows;                   // number of rows added
+
+	public StreamingPercolation(int N) {
+		this(N, XWeightedCompressionUF::new);
+	}
+
+	// as above, relabelling each frontier with a union-find from uf
+	public StreamingPercolation(int N, IntFunction<UF> uf) {
+		if (N <= 0) throw new IllegalArgumentException();
+		this.N = N;
+		this.uf = uf;
+		this.label = new int[N];
+		this.top = new boolean[N];
+		Arrays.fill(label, -1);
+	}
+
+	// number of rows added so far
+	public long rows() {
+		return rows;
+	}
+
+	// does some open site of the last row connect to the top row?
+	public boolean percolates() {
+		return alive;
+	}
+
+	// add the next row; open[j] tells whether site j of the row is open
+	public void addRow(boolean[] open) {
+		if (open.length != N) throw new IllegalArgumentException();
+		boolean first = rows++ == 0;
+		if (!first && !alive) return;   // nothing reaches the top any more, so nothing ever will
+
+		// slots 0..N-1 are the labels of the last row, N..2N-1 the sites of the new one
+		UF frontier = uf.apply(2 * N);
+		for (int j = 0; j < N; j++) {
+			if (!open[j]) continue;
+			if (j > 0 && open[j - 1]) frontier.union(N + j, N + j - 1);
+			if (label[j] >= 0) frontier.union(N + j, label[j]);
+		}
+
+		boolean[] rootTop = new boolean[2 * N];
+		for (int l = 0; l < N; l++)
+			if (top[l]) rootTop[frontier.find(l)] = true;
+
+		int[] rootLabel = new int[2 * N];
+		Arrays.fill(rootLabel, -1);
+		boolean[] newTop = new boolean[N];
+		int labels = 0;
+		alive = false;
+		for (int j = 0; j < N; j++) {
+			if (!open[j]) { label[j] = -1; continue; }
+			int root = frontier.find(N + j);
+			if (rootLabel[root] < 0) {
+				rootLabel[root] = labels;
+				newTop[labels] = first || rootTop[root];
+				labels++;
+			}
+			label[j] = rootLabel[root];
+			alive |= newTop[label[j]];
+		}
+		top = newTop;
+	}
+
+	// stream every row from rows; return whether the strip percolates
+	public static boolean percolates(int N, Iterator<boolean[]> rows, IntFunction<UF> uf) {
+		StreamingPercolation perc = new StreamingPercolation(N, uf);
+		while (rows.hasNext())
+			perc.addRow(rows.next());
+		return perc.percolates();
+	}
+
+	// M rows of N sites, each open with probability p.  The same row array is
+	// refilled on every call to next, so only one row is ever in memory.
+	public static Iterator<boolean[]> randomRows(int N, long M, double p, long seed) {
+		SplittableRandom rng = new SplittableRandom(seed);
+		boolean[] row = new boolean[N];
+		return new Iterator<boolean[]>() {
+			private long made = 0;
+			public boolean hasNext() { return made < M; }
+			public boolean[] next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				for (int j = 0; j < N; j++)
+					row[j] = rng.nextDouble() < p;
+				made++;
+				return row;
+			}
+		};
+	}
+
+	// rows of N 0/1 values read from in, after N has been read
+	public static Iterator<boolean[]> rowsFrom(In in, int N) {
+		boolean[] row = new boolean[N];
+		return new Iterator<boolean[]>() {
+			public boolean hasNext() { return !in.isEmpty(); }
+			public boolean[] next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				for (int j = 0; j < N; j++)
+					row[j] = in.readInt() != 0;
+				return row;
+			}
+		};
+	}
+
+	// streaming and Percolation must agree on random square grids
+	private static void checkAgainstPercolation() {
+		SplittableRandom rng = new SplittableRandom(42);
+		for (int trial = 0; trial < 1000; trial++) {
+			int N = 1 + rng.nextInt(30);
+			double p = 0.4 + 0.4 * rng.nextDouble();
+			Percolation perc = new Percolation(N);
+			StreamingPercolation stream = new StreamingPercolation(N);
+			boolean[] row = new boolean[N];
+			for (int i = 0; i < N; i++) {
+				for (int j = 0; j < N; j++) {
+					row[j] = rng.nextDouble() < p;
+					if (row[j]) perc.open(i, j);
+				}
+				stream.addRow(row);
+			}
+			if (stream.percolates() != perc.percolates())
+				throw new Error("N=" + N + ": expected " + perc.percolates() + ", got " + stream.percolates());
+		}
+		StdOut.println("agrees with Percolation on 1000 random grids");
+	}
+
+	public static void main(String[] args) {
+		if (args.length == 1) {
+			In in = new In(args[0]);
+			int N = in.readInt();
+			StdOut.println(percolates(N, rowsFrom(in, N), XWeightedCompressionUF::new) ? "percolates" : "does not percolate");
+			return;
+		}
+		checkAgainstPercolation();
+		final int N = 1000;
+		final long M = 100000;
+		for (double p = 0.55; p <= 0.651; p += 0.05) {
+			Stopwatch sw = new Stopwatch();
+			StreamingPercolation perc = new StreamingPercolation(N);
+			Iterator<boolean[]> rows = randomRows(N, M, p, 42);
+			long reached = 0;
+			while (rows.hasNext()) {
+				perc.addRow(rows.next());
+				if (perc.percolates()) reached = perc.rows();
+			}
+			StdOut.format("N=%d M=%d p=%4.2f percolates=%b (top reaches row %d) time=%5.2f\n",
+					N, M, p, perc.percolates(), reached, sw.elapsedTime());
+		}
+	}
+}
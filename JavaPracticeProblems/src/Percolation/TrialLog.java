@@ -0,0 +1,207 @@
+package Percolation;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import stdlib.*;
+
+/* **************************************************************************
+ *  Compilation:  javac TrialLog.java
+ *  Execution:    java TrialLog
+ *  Dependencies: ParallelTrials.java PercolationStats.java
+ *
+ *  Append-only checkpoint log of finished Monte Carlo trials, so that an
+ *  interrupted run can resume and redo only the trials in flight.
+ *
+ *    int     MAGIC, VERSION, T
+ *    long    seed
+ *    UTF     description of the experiment (e.g. "PercolationStats N=100 OPEN_ORDER")
+ *    then one 12-byte record per finished trial, in completion order:
+ *    int     trial index t
+ *    double  result of trial t
+ *
+ *  The random state of trial t is the t-th stream split off the seed (see
+ *  ParallelTrials), so the header and the trial index are all the RNG state
+ *  there is: a resumed trial draws exactly what it would have drawn before.
+ *
+ *  Each record is flushed as soon as it is recorded, so a kill loses at
+ *  most the trials still running.  A record is 12 bytes per trial, so the
+ *  flushes cost nothing next to the trials.  A torn record at the end of the
+ *  file (from a kill mid-write) is dropped when the log is opened again.
+ *
+ ****************************************************************************/
+
+public class TrialLog implements Closeable {
+	private static final int MAGIC = 0x54524c47;   // "TRLG"
+	private static final int VERSION = 1;
+	private static final int RECORD = 12;          // bytes per record
+
+	private final int T;
+	private final long seed;
+	private final double[] results;
+	private final boolean[] done;
+	private int completed;
+	private final DataOutputStream out;
+
+	// open the log in filename for T trials from seed, creating it if needed.
+	// An existing log must have been written for the same T, seed and description.
+	public TrialLog(String filename, int T, long seed, String description) throws IOException {
+		if (T <= 0) throw new IllegalArgumentException();
+		this.T = T;
+		this.seed = seed;
+		this.results = new double[T];
+		this.done = new boolean[T];
+
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+			if (file.length() == 0) {
+				file.writeInt(MAGIC);
+				file.writeInt(VERSION);
+				file.writeInt(T);
+				file.writeLong(seed);
+				file.writeUTF(description);
+			} else {
+				if (file.readInt() != MAGIC) throw new IOException(filename + " is not a trial log");
+				if (file.readInt() != VERSION) throw new IOException(filename + ": unsupported trial log version");
+				int logT = file.readInt();
+				long logSeed = file.readLong();
+				String logDescription = file.readUTF();
+				if (logT != T || logSeed != seed || !logDescription.equals(description))
+					throw new IllegalArgumentException(filename + " was written for T=" + logT + " seed=" + logSeed
+							+ " \"" + logDescription + "\"");
+			}
+			long start = file.getFilePointer();
+			long records = (file.length() - start) / RECORD;
+			byte[] bytes = new byte[Math.toIntExact(records * RECORD)];
+			file.readFully(bytes);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			for (long r = 0; r < records; r++) {
+				int t = buffer.getInt();
+				double result = buffer.getDouble();
+				if (t < 0 || t >= T) throw new IOException(filename + ": bad trial index " + t);
+				if (!done[t]) completed++;
+				done[t] = true;
+				results[t] = result;
+			}
+			file.setLength(start + records * RECORD);   // drop a torn last record
+		}
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename, true)));
+	}
+
+	// number of trials
+	public int trials() {
+		return T;
+	}
+
+	// seed the trial streams are split from
+	public long seed() {
+		return seed;
+	}
+
+	// number of distinct trials finished so far
+	public synchronized int completed() {
+		return completed;
+	}
+
+	// has trial t finished?
+	public synchronized boolean isDone(int t) {
+		return done[t];
+	}
+
+	// result of a finished trial t
+	public synchronized double result(int t) {
+		if (!done[t]) throw new IllegalStateException("trial " + t + " has not finished");
+		return results[t];
+	}
+
+	// results[t] of every trial, once they have all finished
+	public synchronized double[] results() {
+		if (completed < T) throw new IllegalStateException((T - completed) + " trials have not finished");
+		return Arrays.copyOf(results, T);
+	}
+
+	// record that trial t finished with the given result, and write it out
+	// (the record goes to the file in one write); safe to call from any thread
+	public synchronized void record(int t, double result) {
+		try {
+			out.writeInt(t);
+			out.writeDouble(result);
+			out.flush();
+			if (!done[t]) completed++;
+			done[t] = true;
+			results[t] = result;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// write out every record recorded so far
+	public synchronized void flush() throws IOException {
+		out.flush();
+	}
+
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	// interrupt a run part way, tear its last record, resume it, and compare
+	// with an uninterrupted run
+	public static void main(String[] args) throws IOException {
+		final int N = 50, T = 100;
+		final long SEED = 42;
+		final String DESCRIPTION = "PercolationStats N=" + N + " OPEN_ORDER";
+		ForkJoinPool pool = new ForkJoinPool(2);
+		double[] expected = new PercolationStats(N, T, SEED, pool, PercolationStats.TrialMode.OPEN_ORDER).results;
+		pool.shutdown();
+
+		File tmp = File.createTempFile("trials-", ".log");
+		tmp.deleteOnExit();
+		tmp.delete();
+		String filename = tmp.getPath();
+
+		// the first run dies after 40 trials, finished in a burst, without
+		// closing (and so flushing) its log, as if the process were killed
+		TrialLog killed = new TrialLog(filename, T, SEED, DESCRIPTION);
+		try {
+			int[] left = { 40 };
+			ParallelTrials.run(1, killed, rng -> {
+				synchronized (left) {
+					if (left[0]-- == 0) throw new IllegalStateException("killed");
+				}
+				return PercolationStats.openOrderTrial(N, rng);
+			});
+			throw new Error("Expected the first run to be killed");
+		} catch (IllegalStateException e) {
+			// expected; killed is never closed
+		}
+		try (FileOutputStream torn = new FileOutputStream(filename, true)) {
+			torn.write(new byte[] { 0, 0, 0, 7, 1 });
+		}
+
+		// the second run resumes
+		int[] ran = { 0 };
+		double[] results;
+		try (TrialLog log = new TrialLog(filename, T, SEED, DESCRIPTION)) {
+			StdOut.println("resumed with " + log.completed() + " of " + T + " trials done");
+			results = ParallelTrials.run(1, log, rng -> {
+				synchronized (ran) { ran[0]++; }
+				return PercolationStats.openOrderTrial(N, rng);
+			});
+		}
+		StdOut.println("resumed run ran " + ran[0] + " trials");
+		if (!Arrays.equals(expected, results)) throw new Error("resumed results differ from an uninterrupted run");
+		if (ran[0] != T - 40) throw new Error("Expected " + (T - 40) + " trials to run, got " + ran[0]);
+
+		// and a third run has nothing left to do
+		try (TrialLog log = new TrialLog(filename, T, SEED, DESCRIPTION)) {
+			if (log.completed() != T) throw new Error("Expected all trials in the log");
+		}
+		StdOut.println("resumed results match an uninterrupted run");
+	}
+}
@@ -11,4 +11,11 @@ public interface UF {
 	public abstract int count();
 	public abstract boolean connected(int p, int q);
 	public abstract void union(int p, int q);
+
+	// union p[k] with q[k] for every k
+	public default void unionAll(int[] p, int[] q) {
+		if (p.length != q.length) throw new IllegalArgumentException();
+		for (int k = 0; k < p.length; k++)
+			union(p[k], q[k]);
+	}
 }
\ No newline at end of file